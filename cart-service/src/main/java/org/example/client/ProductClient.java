@@ -1,21 +1,41 @@
 package org.example.client;
 
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
 import org.example.dto.ProductDTO;
 import org.example.exception.ProductClientException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
 @Component
 public class ProductClient {
     private final WebClient webClient;
     private final String productDetailUrl;
+    private final int batchSize;
+    private final int batchConcurrency;
+    private final Duration timeout;
+    private final CircuitBreaker circuitBreaker;
 
     public ProductClient(WebClient.Builder webClientBuilder,
-                         @Value("${product.detail.url}") String productDetailUrl) {
+                         CircuitBreaker productDetailCircuitBreaker,
+                         @Value("${product.detail.url}") String productDetailUrl,
+                         @Value("${product.detail.batch-size:50}") int batchSize,
+                         @Value("${product.detail.batch-concurrency:4}") int batchConcurrency,
+                         @Value("${product.detail.timeout:PT0.8S}") Duration timeout) {
         this.webClient = webClientBuilder.baseUrl(productDetailUrl).build();
         this.productDetailUrl = productDetailUrl;
+        this.batchSize = batchSize;
+        this.batchConcurrency = batchConcurrency;
+        this.timeout = timeout;
+        this.circuitBreaker = productDetailCircuitBreaker;
     }
 
     public Mono<ProductDTO> getProductById(Integer productId) {
@@ -23,6 +43,29 @@ public class ProductClient {
                 .uri("/{id}", productId)
                 .retrieve()
                 .bodyToMono(ProductDTO.class)
+                .timeout(timeout)
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
                 .onErrorMap(ex -> new ProductClientException("Failed to fetch product with ID: " + productId, ex));
     }
-}
\ No newline at end of file
+
+    public Flux<ProductDTO> getProductsByIds(Collection<? extends Integer> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return Flux.empty();
+        }
+        return Flux.<Integer>fromIterable(productIds)
+                .filter(Objects::nonNull)
+                .distinct()
+                .buffer(batchSize)
+                .flatMap(this::fetchBatch, batchConcurrency);
+    }
+
+    private Flux<ProductDTO> fetchBatch(List<Integer> ids) {
+        return webClient.get()
+                .uri(uriBuilder -> uriBuilder.queryParam("ids", ids).build())
+                .retrieve()
+                .bodyToFlux(ProductDTO.class)
+                .timeout(timeout)
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .onErrorMap(ex -> new ProductClientException("Failed to fetch products with IDs: " + ids, ex));
+    }
+}
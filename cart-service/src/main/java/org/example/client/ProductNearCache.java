@@ -0,0 +1,84 @@
+package org.example.client;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.ProductDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * In-process, size-bounded and TTL-evicting cache of {@link ProductDTO} in front of {@link ProductClient}.
+ * Concurrent misses for the same product id share a single in-flight request to product-detail.
+ */
+@Component
+@Slf4j
+public class ProductNearCache {
+    private static final String CACHE_NAME = "productNearCache";
+
+    private final ProductClient productClient;
+    private final AsyncCache<Integer, ProductDTO> cache;
+
+    public ProductNearCache(ProductClient productClient,
+                            MeterRegistry meterRegistry,
+                            @Value("${product.cache.max-size:10000}") long maxSize,
+                            @Value("${product.cache.ttl:PT5M}") Duration ttl) {
+        this.productClient = productClient;
+        this.cache = CaffeineCacheMetrics.monitor(meterRegistry,
+                Caffeine.newBuilder()
+                        .maximumSize(maxSize)
+                        .expireAfterWrite(ttl)
+                        .recordStats()
+                        .buildAsync(),
+                CACHE_NAME);
+        log.info("Product near-cache initialized: maxSize={}, ttl={}", maxSize, ttl);
+    }
+
+    public Mono<ProductDTO> getProductById(Integer productId) {
+        return Mono.fromFuture(() -> cache.get(productId,
+                (id, executor) -> productClient.getProductById(id).toFuture()), true);
+    }
+
+    public Flux<ProductDTO> getProductsByIds(Collection<Integer> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return Flux.empty();
+        }
+        return Mono.fromFuture(() -> cache.getAll(productIds.stream().filter(Objects::nonNull).distinct().toList(),
+                        (ids, executor) -> productClient.getProductsByIds(ids)
+                                .collectMap(ProductDTO::id)
+                                .toFuture()), true)
+                .flatMapIterable(Map::values);
+    }
+
+    /**
+     * Returns only entries already loaded, without calling product-detail; used for degraded rendering.
+     */
+    public Map<Integer, ProductDTO> getCachedProducts(Collection<Integer> productIds) {
+        return cache.synchronous().getAllPresent(productIds);
+    }
+
+    /**
+     * Bypasses the cache and refreshes the entry, for callers that must see the current price.
+     */
+    public Mono<ProductDTO> getFreshProductById(Integer productId) {
+        return productClient.getProductById(productId)
+                .doOnNext(product -> cache.synchronous().put(productId, product));
+    }
+
+    /**
+     * Batch variant of {@link #getFreshProductById(Integer)}.
+     */
+    public Flux<ProductDTO> getFreshProductsByIds(Collection<Integer> productIds) {
+        return productClient.getProductsByIds(productIds)
+                .doOnNext(product -> cache.synchronous().put(product.id(), product));
+    }
+}
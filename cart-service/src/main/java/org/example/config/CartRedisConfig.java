@@ -0,0 +1,30 @@
+package org.example.config;
+
+import org.example.dto.CartDTO;
+import org.example.dto.CartEventDTO;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+
+@Configuration
+public class CartRedisConfig {
+
+    @Bean
+    public ReactiveRedisTemplate<String, CartDTO> cartRedisTemplate(
+            ReactiveRedisConnectionFactory factory, RedisConfig redisConfig) {
+        return redisConfig.createReactiveRedisTemplate(factory, CartDTO.class);
+    }
+
+    @Bean
+    public ReactiveRedisTemplate<String, CartEventDTO> cartEventRedisTemplate(
+            ReactiveRedisConnectionFactory factory, RedisConfig redisConfig) {
+        return redisConfig.createReactiveRedisTemplate(factory, CartEventDTO.class);
+    }
+
+    @Bean
+    public ReactiveRedisMessageListenerContainer cartEventListenerContainer(ReactiveRedisConnectionFactory factory) {
+        return new ReactiveRedisMessageListenerContainer(factory);
+    }
+}
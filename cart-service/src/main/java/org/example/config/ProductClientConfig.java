@@ -0,0 +1,44 @@
+package org.example.config;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+
+@Configuration
+public class ProductClientConfig {
+
+    @Bean
+    public CircuitBreakerRegistry circuitBreakerRegistry(MeterRegistry meterRegistry) {
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.ofDefaults();
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    @Bean
+    public CircuitBreaker productDetailCircuitBreaker(
+            CircuitBreakerRegistry registry,
+            @Value("${product.detail.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${product.detail.circuit-breaker.sliding-window-size:20}") int slidingWindowSize,
+            @Value("${product.detail.circuit-breaker.minimum-number-of-calls:10}") int minimumNumberOfCalls,
+            @Value("${product.detail.circuit-breaker.wait-duration-in-open-state:PT10S}") Duration waitDurationInOpenState,
+            @Value("${product.detail.circuit-breaker.permitted-calls-in-half-open-state:3}") int permittedCallsInHalfOpenState) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumNumberOfCalls)
+                .waitDurationInOpenState(waitDurationInOpenState)
+                .permittedNumberOfCallsInHalfOpenState(permittedCallsInHalfOpenState)
+                .ignoreException(ex -> ex instanceof WebClientResponseException response
+                        && response.getStatusCode().is4xxClientError())
+                .build();
+        return registry.circuitBreaker("product-detail", config);
+    }
+}
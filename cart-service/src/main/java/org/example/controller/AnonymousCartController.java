@@ -8,8 +8,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
+import org.example.dto.CartBatchRequestDTO;
 import org.example.dto.CartDTO;
 import org.example.dto.CartItemRequestDTO;
+import org.example.dto.CartSummaryDTO;
 import org.example.service.CartService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,6 +40,16 @@ public class AnonymousCartController {
                 .map(ResponseEntity::ok);
     }
 
+    @Operation(summary = "Get anonymous cart summary", description = "Returns the item count and total of an anonymous cart without product details")
+    @ApiResponse(responseCode = "200", description = "Summary computed",
+            content = @Content(schema = @Schema(implementation = CartSummaryDTO.class)))
+    @GetMapping("/{id}/summary")
+    public Mono<ResponseEntity<CartSummaryDTO>> getAnonymousCartSummary(@PathVariable UUID id) {
+        log.debug("Fetching anonymous cart summary: {}", id);
+        return cartService.getAnonymousCartSummary(id)
+                .map(ResponseEntity::ok);
+    }
+
     @Operation(summary = "Add item to anonymous cart", description = "Adds a product to an anonymous cart by cart ID")
     @ApiResponse(responseCode = "201", description = "Item added",
             content = @Content(schema = @Schema(implementation = CartDTO.class)))
@@ -74,6 +86,18 @@ public class AnonymousCartController {
                 .map(ResponseEntity::ok);
     }
 
+    @Operation(summary = "Apply item operations to anonymous cart", description = "Applies a list of add/update/remove operations to an anonymous cart in one transaction")
+    @ApiResponse(responseCode = "200", description = "Operations applied",
+            content = @Content(schema = @Schema(implementation = CartDTO.class)))
+    @PatchMapping("/{id}/items")
+    public Mono<ResponseEntity<CartDTO>> applyItemOperationsToAnonymousCart(
+            @PathVariable UUID id,
+            @Valid @RequestBody CartBatchRequestDTO request) {
+        log.debug("Applying {} item operations to anonymous cart: {}", request.operations().size(), id);
+        return cartService.applyItemOperationsToAnonymousCart(id, request)
+                .map(ResponseEntity::ok);
+    }
+
     @Operation(summary = "Clear anonymous cart", description = "Clears all items from an anonymous cart by cart ID")
     @ApiResponse(responseCode = "204", description = "Cart cleared")
     @DeleteMapping("/{id}")
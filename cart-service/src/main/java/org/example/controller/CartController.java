@@ -7,19 +7,27 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
+import org.example.dto.CartBatchRequestDTO;
 import org.example.dto.CartDTO;
+import org.example.dto.CartEventDTO;
 import org.example.dto.CartItemRequestDTO;
+import org.example.dto.CartSnapshotDTO;
+import org.example.dto.CartSummaryDTO;
 import org.example.service.CartService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import jakarta.validation.Valid;
+import java.time.Duration;
 import java.util.UUID;
 
 @RestController
@@ -28,6 +36,7 @@ import java.util.UUID;
 @Tag(name = "Cart API", description = "API for managing user carts")
 public class CartController {
     private static final Logger log = LoggerFactory.getLogger(CartController.class);
+    private static final Duration STREAM_HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
     private final CartService cartService;
 
     private UUID getUserIdFromRequest(@AuthenticationPrincipal Jwt jwt, @RequestHeader(value = "X-User-Id", required = false) String xUserId) {
@@ -81,6 +90,52 @@ public class CartController {
                 });
     }
 
+    @Operation(summary = "Get cart snapshot", description = "Returns the stored cart lines and version without product details, for checkout")
+    @ApiResponse(responseCode = "200", description = "Snapshot taken",
+            content = @Content(schema = @Schema(implementation = CartSnapshotDTO.class)))
+    @GetMapping("/snapshot")
+    public Mono<ResponseEntity<CartSnapshotDTO>> getCartSnapshot(
+            @AuthenticationPrincipal Jwt jwt,
+            @RequestHeader(value = "X-User-Id", required = false) String xUserId) {
+        UUID userId = getUserIdFromRequest(jwt, xUserId);
+        log.debug("Fetching cart snapshot for user: {}", userId);
+        return cartService.getCartSnapshot(userId)
+                .map(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Stream cart changes", description = "Server-sent events with the current cart followed by every change to it")
+    @ApiResponse(responseCode = "200", description = "Event stream opened")
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<CartEventDTO>> streamCart(@AuthenticationPrincipal Jwt jwt) {
+        UUID userId = getUserIdFromRequest(jwt, null);
+        log.debug("Opening cart event stream for user: {}", userId);
+        Flux<ServerSentEvent<CartEventDTO>> events = cartService.streamCartEvents(userId)
+                .map(event -> ServerSentEvent.<CartEventDTO>builder()
+                        .event(event.type().name())
+                        .id(event.version() != null ? event.version().toString() : null)
+                        .data(event)
+                        .build());
+        Flux<ServerSentEvent<CartEventDTO>> heartbeats = Flux.interval(STREAM_HEARTBEAT_INTERVAL)
+                .map(tick -> ServerSentEvent.<CartEventDTO>builder()
+                        .comment("heartbeat")
+                        .build());
+        return Flux.merge(events, heartbeats)
+                .doFinally(signal -> log.debug("Closed cart event stream for user: {} ({})", userId, signal));
+    }
+
+    @Operation(summary = "Get cart summary", description = "Returns the item count and total of the authenticated user's cart without product details")
+    @ApiResponse(responseCode = "200", description = "Summary computed",
+            content = @Content(schema = @Schema(implementation = CartSummaryDTO.class)))
+    @GetMapping("/summary")
+    public Mono<ResponseEntity<CartSummaryDTO>> getCartSummary(
+            @AuthenticationPrincipal Jwt jwt,
+            @RequestHeader(value = "X-User-Id", required = false) String xUserId) {
+        UUID userId = getUserIdFromRequest(jwt, xUserId);
+        log.debug("Fetching cart summary for user: {}", userId);
+        return cartService.getCartSummary(userId)
+                .map(ResponseEntity::ok);
+    }
+
     @Operation(summary = "Add item to cart", description = "Adds a product to the user's cart")
     @ApiResponse(responseCode = "201", description = "Item added",
             content = @Content(schema = @Schema(implementation = CartDTO.class)))
@@ -141,15 +196,37 @@ public class CartController {
                 });
     }
 
-    @Operation(summary = "Clear cart", description = "Clears all items from the user's cart")
+    @Operation(summary = "Apply item operations", description = "Applies a list of add/update/remove operations to the user's cart in one transaction")
+    @ApiResponse(responseCode = "200", description = "Operations applied",
+            content = @Content(schema = @Schema(implementation = CartDTO.class)))
+    @PatchMapping("/items")
+    public Mono<ResponseEntity<CartDTO>> applyItemOperations(
+            @AuthenticationPrincipal Jwt jwt,
+            @Valid @RequestBody CartBatchRequestDTO request) {
+        UUID userId = getUserIdFromRequest(jwt, null);
+        log.debug("Applying {} item operations to cart for user: {}", request.operations().size(), userId);
+        return cartService.applyItemOperations(userId, request)
+                .map(cartDTO -> {
+                    log.debug("Applied item operations to cart for user: {}", userId);
+                    return ResponseEntity.ok(cartDTO);
+                })
+                .onErrorMap(e -> {
+                    log.error("Error applying item operations for user {}: {}", userId, e.getMessage(), e);
+                    return e;
+                });
+    }
+
+    @Operation(summary = "Clear cart", description = "Clears all items from the user's cart; with a version, only if the cart is still at that version")
     @ApiResponse(responseCode = "204", description = "Cart cleared")
+    @ApiResponse(responseCode = "409", description = "Cart changed since the given version")
     @DeleteMapping
     public Mono<ResponseEntity<Void>> clearCart(
             @AuthenticationPrincipal Jwt jwt,
-            @RequestHeader(value = "X-User-Id", required = false) String xUserId) {
+            @RequestHeader(value = "X-User-Id", required = false) String xUserId,
+            @RequestParam(required = false) Long version) {
         UUID userId = getUserIdFromRequest(jwt, xUserId);
-        log.debug("Clearing cart for user: {}", userId);
-        return cartService.clearCart(userId)
+        log.debug("Clearing cart for user: {}, version: {}", userId, version);
+        return cartService.clearCart(userId, version)
                 .doOnSuccess(v -> log.debug("Cleared cart for user: {}", userId))
                 .then(Mono.just(ResponseEntity.noContent().<Void>build()))
                 .onErrorMap(e -> {
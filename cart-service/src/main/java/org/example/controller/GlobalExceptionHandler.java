@@ -24,6 +24,12 @@ public class GlobalExceptionHandler extends BaseExceptionHandler {
         return createErrorResponse(ex, exchange, HttpStatus.NOT_FOUND, "Cart Not Found");
     }
 
+    @ExceptionHandler(CartVersionConflictException.class)
+    public Mono<ResponseEntity<ApiError>> handleCartVersionConflict(CartVersionConflictException ex, ServerWebExchange exchange) {
+        log.debug("Cart version conflict: {}", ex.getMessage());
+        return createErrorResponse(ex, exchange, HttpStatus.CONFLICT, "Cart Version Conflict");
+    }
+
     @ExceptionHandler(ProductClientException.class)
     public Mono<ResponseEntity<ApiError>> handleProductClientException(ProductClientException ex, ServerWebExchange exchange) {
         log.warn("Product service error: {}", ex.getMessage());
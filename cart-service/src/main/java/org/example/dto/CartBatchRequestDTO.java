@@ -0,0 +1,13 @@
+package org.example.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record CartBatchRequestDTO(
+        @NotEmpty(message = "Operations cannot be empty")
+        @Size(max = 200, message = "At most 200 operations are allowed per request")
+        List<@Valid CartItemOperationDTO> operations
+) {}
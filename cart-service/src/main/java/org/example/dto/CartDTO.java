@@ -10,7 +10,9 @@ public record CartDTO(
         UUID userId,
         List<CartItemDTO> items,
         BigDecimal totalAmount,
-        LocalDateTime createdAt
+        LocalDateTime createdAt,
+        Long version,
+        boolean partial
 ) {
     public record CartItemDTO(
             Integer id,
@@ -0,0 +1,30 @@
+package org.example.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * SNAPSHOT carries the whole cart, UPDATED only the lines the change touched and CLEARED neither. An UPDATED event
+ * applies to the cart at {@code version - 1}; a client holding any other version reopens the stream for a snapshot.
+ */
+public record CartEventDTO(
+        Type type,
+        UUID userId,
+        Long version,
+        CartDTO cart,
+        Delta delta
+) {
+    public enum Type {
+        SNAPSHOT,
+        UPDATED,
+        CLEARED
+    }
+
+    public record Delta(
+            List<CartDTO.CartItemDTO> changedItems,
+            List<Integer> removedProductIds,
+            BigDecimal totalAmount,
+            boolean partial
+    ) {}
+}
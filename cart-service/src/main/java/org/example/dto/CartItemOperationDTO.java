@@ -0,0 +1,21 @@
+package org.example.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public record CartItemOperationDTO(
+        @NotNull(message = "Operation type cannot be null")
+        Type type,
+
+        @NotNull(message = "Product ID cannot be null")
+        Integer productId,
+
+        @Min(value = 1, message = "Quantity must be greater than 0")
+        Integer quantity
+) {
+    public enum Type {
+        ADD,
+        UPDATE,
+        REMOVE
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Cart lines as stored, without product details; {@code version} identifies exactly this content.
+ */
+public record CartSnapshotDTO(
+        String id,
+        UUID userId,
+        Long version,
+        List<LineDTO> items
+) {
+    public record LineDTO(
+            Integer productId,
+            Integer quantity,
+            BigDecimal priceAtTime
+    ) {}
+}
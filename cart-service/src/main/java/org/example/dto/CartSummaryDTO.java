@@ -0,0 +1,9 @@
+package org.example.dto;
+
+import java.math.BigDecimal;
+
+public record CartSummaryDTO(
+        Long lineCount,
+        Long itemCount,
+        BigDecimal totalAmount
+) {}
@@ -0,0 +1,9 @@
+package org.example.exception;
+
+import java.util.UUID;
+
+public class CartVersionConflictException extends ServiceException {
+    public CartVersionConflictException(UUID cartId, Long expectedVersion, Long actualVersion) {
+        super("Cart " + cartId + " is at version " + actualVersion + ", expected " + expectedVersion);
+    }
+}
@@ -18,7 +18,9 @@ public interface CartMapper {
     @Mapping(target = "items", source = "itemDTOs")
     @Mapping(target = "totalAmount", source = "totalAmount")
     @Mapping(target = "createdAt", source = "cart.createdAt")
-    CartDTO toCartDTO(Cart cart, List<CartDTO.CartItemDTO> itemDTOs, BigDecimal totalAmount);
+    @Mapping(target = "version", source = "cart.version")
+    @Mapping(target = "partial", source = "partial")
+    CartDTO toCartDTO(Cart cart, List<CartDTO.CartItemDTO> itemDTOs, BigDecimal totalAmount, boolean partial);
 
     @Mapping(target = "id", source = "item.id")
     @Mapping(target = "productId", source = "item.productId")
@@ -26,6 +26,9 @@ public class Cart {
     @Column("created_at")
     private LocalDateTime createdAt;
 
+    @Builder.Default
+    private Long version = 0L;
+
     @Transient
     private List<CartItem> items;
 }
\ No newline at end of file
@@ -1,8 +1,10 @@
 package org.example.repository;
 
+import org.example.dto.CartSummaryDTO;
 import org.example.model.CartItem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
@@ -10,6 +12,8 @@ import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.UUID;
 
 @Repository
@@ -21,6 +25,44 @@ public interface CartItemRepository extends ReactiveCrudRepository<CartItem, Int
 
     Mono<CartItem> findByCartIdAndProductId(UUID cartId, Integer productId);
 
+    @Query("UPDATE cart_items SET quantity = quantity + :delta " +
+            "WHERE cart_id = :cartId AND product_id = :productId " +
+            "RETURNING *")
+    Mono<CartItem> incrementQuantity(UUID cartId, Integer productId, Integer delta);
+
+    @Query("INSERT INTO cart_items (cart_id, product_id, quantity, price_at_time) " +
+            "VALUES (:cartId, :productId, :delta, :priceAtTime) " +
+            "ON CONFLICT (cart_id, product_id) DO UPDATE SET quantity = cart_items.quantity + EXCLUDED.quantity " +
+            "RETURNING *")
+    Mono<CartItem> upsertQuantity(UUID cartId, Integer productId, Integer delta, BigDecimal priceAtTime);
+
+    @Query("SELECT COUNT(ci.id) AS line_count, " +
+            "COALESCE(SUM(ci.quantity), 0) AS item_count, " +
+            "COALESCE(SUM(ci.price_at_time * ci.quantity), 0) AS total_amount " +
+            "FROM carts c LEFT JOIN cart_items ci ON ci.cart_id = c.id " +
+            "WHERE c.user_id = :userId")
+    Mono<CartSummaryDTO> summarizeByUserId(UUID userId);
+
+    @Query("SELECT COUNT(id) AS line_count, " +
+            "COALESCE(SUM(quantity), 0) AS item_count, " +
+            "COALESCE(SUM(price_at_time * quantity), 0) AS total_amount " +
+            "FROM cart_items WHERE cart_id = :cartId")
+    Mono<CartSummaryDTO> summarizeByCartId(UUID cartId);
+
+    @Modifying
+    @Query("DELETE FROM cart_items WHERE cart_id = :cartId")
+    Mono<Integer> deleteByCartId(UUID cartId);
+
+    @Modifying
+    @Query("DELETE FROM cart_items WHERE cart_id IN (:cartIds)")
+    Mono<Integer> deleteByCartIds(Collection<UUID> cartIds);
+
+    @Modifying
+    @Query("INSERT INTO cart_items (cart_id, product_id, quantity, price_at_time) " +
+            "SELECT :targetCartId, product_id, quantity, price_at_time FROM cart_items WHERE cart_id = :sourceCartId " +
+            "ON CONFLICT (cart_id, product_id) DO UPDATE SET quantity = cart_items.quantity + EXCLUDED.quantity")
+    Mono<Integer> mergeItems(UUID sourceCartId, UUID targetCartId);
+
     default Flux<CartItem> findByCartId(UUID cartId) {
         log.info("[REPOSITORY] Finding items for cartId: {}", cartId);
         return findByCartIdInternal(cartId)
@@ -3,6 +3,7 @@ package org.example.repository;
 import org.example.model.Cart;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
@@ -11,6 +12,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.UUID;
 
 @Repository
@@ -29,6 +31,17 @@ public interface CartRepository extends ReactiveCrudRepository<Cart, UUID> {
                 .doOnError(e -> log.error("[REPOSITORY] Error finding cart for userId: {}", userId, e));
     }
 
-    @Query("DELETE FROM carts WHERE user_id IS NULL AND created_at < :beforeDate")
-    Mono<Void> deleteOldAnonymousCarts(LocalDateTime beforeDate);
+    @Query("SELECT * FROM carts WHERE user_id = :userId FOR UPDATE")
+    Mono<Cart> findByUserIdForUpdate(UUID userId);
+
+    @Query("UPDATE carts SET version = version + 1 WHERE id = :cartId RETURNING version")
+    Mono<Long> incrementVersion(UUID cartId);
+
+    @Query("SELECT id FROM carts WHERE user_id IS NULL AND created_at < :beforeDate " +
+            "ORDER BY created_at LIMIT :limit FOR UPDATE SKIP LOCKED")
+    Flux<UUID> findOldAnonymousCartIds(LocalDateTime beforeDate, int limit);
+
+    @Modifying
+    @Query("DELETE FROM carts WHERE id IN (:ids)")
+    Mono<Integer> deleteByIds(Collection<UUID> ids);
 }
\ No newline at end of file
@@ -0,0 +1,139 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.repository.CartItemRepository;
+import org.example.repository.CartRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes anonymous carts older than {@code cart.purge.max-age} in bounded batches.
+ * Only the replica holding the Redis lock runs a purge; each batch commits in its own transaction.
+ */
+@Component
+@ConditionalOnProperty(name = "cart.purge.enabled", havingValue = "true", matchIfMissing = true)
+public class AnonymousCartPurgeJob {
+
+    private static final Logger log = LoggerFactory.getLogger(AnonymousCartPurgeJob.class);
+    private static final String LOCK_KEY = "locks:cart-purge";
+    private static final RedisScript<Long> RELEASE_LOCK_SCRIPT = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final ReactiveStringRedisTemplate stringRedisTemplate;
+    private final Duration maxAge;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration batchPause;
+    private final Duration lockTtl;
+    private final Counter purgedCarts;
+    private final Timer purgeTimer;
+
+    public AnonymousCartPurgeJob(CartRepository cartRepository,
+                                 CartItemRepository cartItemRepository,
+                                 TransactionalOperator transactionalOperator,
+                                 ReactiveStringRedisTemplate stringRedisTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${cart.purge.max-age:P7D}") Duration maxAge,
+                                 @Value("${cart.purge.batch-size:500}") int batchSize,
+                                 @Value("${cart.purge.max-batches-per-run:20}") int maxBatchesPerRun,
+                                 @Value("${cart.purge.batch-pause:PT1S}") Duration batchPause,
+                                 @Value("${cart.purge.lock-ttl:PT10M}") Duration lockTtl) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.maxAge = maxAge;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.batchPause = batchPause;
+        this.lockTtl = lockTtl;
+        this.purgedCarts = Counter.builder("cart.purge.carts")
+                .description("Anonymous carts deleted by the purge job")
+                .register(meterRegistry);
+        this.purgeTimer = Timer.builder("cart.purge.duration")
+                .description("Time taken by one purge run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${cart.purge.interval:PT15M}", initialDelayString = "${cart.purge.initial-delay:PT1M}")
+    public Mono<Void> purge() {
+        String token = UUID.randomUUID().toString();
+        return stringRedisTemplate.opsForValue().setIfAbsent(LOCK_KEY, token, lockTtl)
+                .flatMap(acquired -> {
+                    if (!acquired) {
+                        log.debug("Cart purge lock held by another instance, skipping run");
+                        return Mono.empty();
+                    }
+                    return purgeOldCarts()
+                            .flatMap(count -> releaseLock(token).thenReturn(count))
+                            .onErrorResume(e -> releaseLock(token).then(Mono.error(e)));
+                })
+                .then()
+                .onErrorResume(e -> {
+                    log.error("Cart purge failed", e);
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Long> purgeOldCarts() {
+        LocalDateTime beforeDate = LocalDateTime.now().minus(maxAge);
+        long start = System.nanoTime();
+        return Flux.range(0, maxBatchesPerRun)
+                .concatMap(batch -> purgeBatch(beforeDate)
+                        .delaySubscription(batch == 0 ? Duration.ZERO : batchPause))
+                .takeUntil(deleted -> deleted < batchSize)
+                .reduce(0L, (total, deleted) -> total + deleted)
+                .doOnNext(total -> {
+                    long elapsed = System.nanoTime() - start;
+                    purgeTimer.record(elapsed, TimeUnit.NANOSECONDS);
+                    log.info("Purged {} anonymous carts created before {} in {} ms",
+                            total, beforeDate, TimeUnit.NANOSECONDS.toMillis(elapsed));
+                });
+    }
+
+    private Mono<Integer> purgeBatch(LocalDateTime beforeDate) {
+        return cartRepository.findOldAnonymousCartIds(beforeDate, batchSize)
+                .collectList()
+                .flatMap(this::deleteCarts)
+                .as(transactionalOperator::transactional)
+                .doOnNext(purgedCarts::increment);
+    }
+
+    private Mono<Integer> deleteCarts(List<UUID> cartIds) {
+        if (cartIds.isEmpty()) {
+            return Mono.just(0);
+        }
+        return cartItemRepository.deleteByCartIds(cartIds)
+                .then(cartRepository.deleteByIds(cartIds));
+    }
+
+    private Mono<Long> releaseLock(String token) {
+        return stringRedisTemplate.execute(RELEASE_LOCK_SCRIPT, List.of(LOCK_KEY), List.of(token))
+                .next()
+                .onErrorResume(e -> {
+                    log.warn("Failed to release cart purge lock", e);
+                    return Mono.just(0L);
+                });
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.service;
+
+import org.example.dto.CartDTO;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+public interface CartCacheManager {
+
+    Mono<CartDTO> getCart(UUID cartId);
+
+    Mono<CartDTO> cacheCart(CartDTO cart);
+
+    Mono<Void> evictCart(UUID cartId);
+}
@@ -0,0 +1,77 @@
+package org.example.service;
+
+import org.example.dto.CartDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Materialized {@link CartDTO} views kept in Redis under the {@code carts} cache name.
+ * Entries carry the cart version they were built from; callers compare it with Postgres before serving.
+ */
+@Component
+public class CartCacheManagerImpl implements CartCacheManager {
+
+    private static final Logger log = LoggerFactory.getLogger(CartCacheManagerImpl.class);
+
+    private final ReactiveRedisTemplate<String, CartDTO> cartRedisTemplate;
+    private final String cacheName;
+    private final Duration cacheTtl;
+
+    public CartCacheManagerImpl(ReactiveRedisTemplate<String, CartDTO> cartRedisTemplate,
+                                @Value("${spring.cache.cache-names:carts}") String cacheName,
+                                @Value("${spring.cache.redis.time-to-live:PT30M}") Duration cacheTtl) {
+        this.cartRedisTemplate = cartRedisTemplate;
+        this.cacheName = cacheName;
+        this.cacheTtl = cacheTtl;
+    }
+
+    @Override
+    public Mono<CartDTO> getCart(UUID cartId) {
+        String cacheKey = buildCacheKey(cartId);
+        return cartRedisTemplate.opsForValue().get(cacheKey)
+                .doOnNext(value -> log.debug("Cache hit for key: {}, version: {}", cacheKey, value.version()))
+                .onErrorResume(e -> {
+                    log.error("Failed to access cache for key: {}", cacheKey, e);
+                    return Mono.empty();
+                });
+    }
+
+    @Override
+    public Mono<CartDTO> cacheCart(CartDTO cart) {
+        if (cart.partial()) {
+            log.debug("Not caching partially enriched cart: {}", cart.id());
+            return Mono.just(cart);
+        }
+        String cacheKey = buildCacheKey(UUID.fromString(cart.id()));
+        return cartRedisTemplate.opsForValue()
+                .set(cacheKey, cart, cacheTtl)
+                .thenReturn(cart)
+                .onErrorResume(e -> {
+                    log.warn("Failed to cache CartDTO for key: {}", cacheKey, e);
+                    return Mono.just(cart);
+                });
+    }
+
+    @Override
+    public Mono<Void> evictCart(UUID cartId) {
+        String cacheKey = buildCacheKey(cartId);
+        return cartRedisTemplate.delete(cacheKey)
+                .doOnSuccess(v -> log.debug("Deleted cache key: {}", cacheKey))
+                .then()
+                .onErrorResume(e -> {
+                    log.error("Failed to evict cache key: {}", cacheKey, e);
+                    return Mono.empty();
+                });
+    }
+
+    private String buildCacheKey(UUID cartId) {
+        return cacheName + "::" + cartId;
+    }
+}
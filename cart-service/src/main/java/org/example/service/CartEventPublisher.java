@@ -0,0 +1,91 @@
+package org.example.service;
+
+import org.example.dto.CartDTO;
+import org.example.dto.CartEventDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Fans cart changes out to every replica over Redis pub/sub, one channel per user.
+ */
+@Component
+public class CartEventPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(CartEventPublisher.class);
+    private static final String CHANNEL_PREFIX = "cart-events:";
+
+    private final ReactiveRedisTemplate<String, CartEventDTO> cartEventRedisTemplate;
+    private final ReactiveRedisMessageListenerContainer listenerContainer;
+
+    public CartEventPublisher(ReactiveRedisTemplate<String, CartEventDTO> cartEventRedisTemplate,
+                              ReactiveRedisMessageListenerContainer cartEventListenerContainer) {
+        this.cartEventRedisTemplate = cartEventRedisTemplate;
+        this.listenerContainer = cartEventListenerContainer;
+    }
+
+    /**
+     * Publishes the lines of {@code cart} for the products a change touched; touched products the cart no longer
+     * holds go out as removed.
+     */
+    public Mono<CartDTO> publishUpdated(CartDTO cart, Collection<Integer> changedProductIds) {
+        if (cart.userId() == null) {
+            return Mono.just(cart);
+        }
+        Set<Integer> changed = Set.copyOf(changedProductIds);
+        List<CartDTO.CartItemDTO> changedItems = cart.items().stream()
+                .filter(item -> changed.contains(item.productId()))
+                .toList();
+        Set<Integer> held = changedItems.stream()
+                .map(CartDTO.CartItemDTO::productId)
+                .collect(Collectors.toSet());
+        List<Integer> removedProductIds = changed.stream()
+                .filter(productId -> !held.contains(productId))
+                .toList();
+        CartEventDTO.Delta delta = new CartEventDTO.Delta(changedItems, removedProductIds, cart.totalAmount(), cart.partial());
+        return publish(new CartEventDTO(CartEventDTO.Type.UPDATED, cart.userId(), cart.version(), null, delta))
+                .thenReturn(cart);
+    }
+
+    public Mono<Void> publishCleared(UUID userId) {
+        if (userId == null) {
+            return Mono.empty();
+        }
+        return publish(new CartEventDTO(CartEventDTO.Type.CLEARED, userId, null, null, null));
+    }
+
+    /**
+     * Completes once the channel subscription is registered with Redis, emitting the event stream.
+     */
+    public Mono<Flux<CartEventDTO>> listen(UUID userId) {
+        RedisSerializationContext<String, CartEventDTO> serializationContext = cartEventRedisTemplate.getSerializationContext();
+        return listenerContainer.receiveLater(List.of(ChannelTopic.of(CHANNEL_PREFIX + userId)),
+                        serializationContext.getKeySerializationPair(),
+                        serializationContext.getValueSerializationPair())
+                .map(messages -> messages.map(ReactiveSubscription.Message::getMessage));
+    }
+
+    private Mono<Void> publish(CartEventDTO event) {
+        String channel = CHANNEL_PREFIX + event.userId();
+        return cartEventRedisTemplate.convertAndSend(channel, event)
+                .doOnNext(receivers -> log.debug("Published {} event to {} ({} receivers)", event.type(), channel, receivers))
+                .then()
+                .onErrorResume(e -> {
+                    log.warn("Failed to publish cart event to channel: {}", channel, e);
+                    return Mono.empty();
+                });
+    }
+}
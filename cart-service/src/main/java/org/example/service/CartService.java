@@ -1,7 +1,12 @@
 package org.example.service;
 
+import org.example.dto.CartBatchRequestDTO;
 import org.example.dto.CartDTO;
+import org.example.dto.CartEventDTO;
 import org.example.dto.CartItemRequestDTO;
+import org.example.dto.CartSnapshotDTO;
+import org.example.dto.CartSummaryDTO;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.UUID;
@@ -9,13 +14,20 @@ import java.util.UUID;
 public interface CartService {
     Mono<CartDTO> getCartByUserId(UUID userId);
     Mono<CartDTO> getOrCreateAnonymousCart(UUID id);
+    Flux<CartEventDTO> streamCartEvents(UUID userId);
+    Mono<CartSummaryDTO> getCartSummary(UUID userId);
+    Mono<CartSummaryDTO> getAnonymousCartSummary(UUID id);
     Mono<CartDTO> addItemToCart(UUID userId, CartItemRequestDTO request);
     Mono<CartDTO> addItemToAnonymousCart(UUID id, CartItemRequestDTO request);
     Mono<CartDTO> removeItemFromCart(UUID userId, Integer productId);
     Mono<CartDTO> removeItemFromAnonymousCart(UUID id, Integer productId);
     Mono<CartDTO> updateItemQuantity(UUID userId, CartItemRequestDTO request);
     Mono<CartDTO> updateItemQuantityInAnonymousCart(UUID id, CartItemRequestDTO request);
+    Mono<CartDTO> applyItemOperations(UUID userId, CartBatchRequestDTO request);
+    Mono<CartDTO> applyItemOperationsToAnonymousCart(UUID id, CartBatchRequestDTO request);
     Mono<Void> clearCart(UUID userId);
+    Mono<Void> clearCart(UUID userId, Long expectedVersion);
+    Mono<CartSnapshotDTO> getCartSnapshot(UUID userId);
     Mono<Void> clearAnonymousCart(UUID id);
     Mono<CartDTO> mergeCarts(UUID userId, UUID id);
 }
\ No newline at end of file
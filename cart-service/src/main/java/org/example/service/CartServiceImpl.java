@@ -1,154 +1,264 @@
 package org.example.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
-import org.example.client.ProductClient;
+import org.example.client.ProductNearCache;
+import org.example.dto.CartBatchRequestDTO;
 import org.example.dto.CartDTO;
+import org.example.dto.CartEventDTO;
+import org.example.dto.CartItemOperationDTO;
 import org.example.dto.CartItemRequestDTO;
+import org.example.dto.CartSnapshotDTO;
+import org.example.dto.CartSummaryDTO;
 import org.example.dto.ProductDTO;
 import org.example.exception.CartNotFoundException;
 import org.example.exception.CartOperationException;
+import org.example.exception.CartVersionConflictException;
 import org.example.mapper.CartMapper;
 import org.example.model.Cart;
 import org.example.model.CartItem;
 import org.example.repository.CartItemRepository;
 import org.example.repository.CartRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
+/**
+ * Mutations run in a transaction that only touches Postgres; the Redis view is written and the change published
+ * once it has committed, so neither can show a cart that was rolled back.
+ */
 @Service
 @RequiredArgsConstructor
 public class CartServiceImpl implements CartService {
+    private static final Logger log = LoggerFactory.getLogger(CartServiceImpl.class);
+
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
-    private final ProductClient productClient;
+    private final ProductNearCache productCache;
+    private final CartCacheManager cartCacheManager;
+    private final CartEventPublisher cartEventPublisher;
     private final CartMapper cartMapper;
+    private final MeterRegistry meterRegistry;
+    private final TransactionalOperator transactionalOperator;
+
+    @Value("${cart.render.product-budget:PT1S}")
+    private Duration productBudget;
 
     @Override
-    @Transactional
     public Mono<CartDTO> getCartByUserId(UUID userId) {
-        return getOrCreateCart(userId)
-                .flatMap(this::buildCartDTO);
+        return transactionalOperator.transactional(getOrCreateCart(userId))
+                .flatMap(this::renderCart);
     }
 
     @Override
-    @Transactional
     public Mono<CartDTO> getOrCreateAnonymousCart(UUID id) {
-        return cartRepository.findById(id)
-                .switchIfEmpty(Mono.defer(() -> {
-                    Cart newCart = Cart.builder()
-                            .build();
-                    return cartRepository.save(newCart);
-                }))
-                .flatMap(this::buildCartDTO);
+        return transactionalOperator.transactional(cartRepository.findById(id)
+                        .switchIfEmpty(Mono.defer(() -> {
+                            Cart newCart = Cart.builder()
+                                    .build();
+                            return cartRepository.save(newCart);
+                        })))
+                .flatMap(this::renderCart);
+    }
+
+    /**
+     * Subscribes to the user's change channel before reading the snapshot, so no update is missed; clients drop
+     * deltas whose version is not newer than the one they hold and reopen the stream on a gap.
+     */
+    @Override
+    public Flux<CartEventDTO> streamCartEvents(UUID userId) {
+        Mono<CartEventDTO> snapshot = Mono.defer(() -> getCartByUserId(userId))
+                .map(cart -> new CartEventDTO(CartEventDTO.Type.SNAPSHOT, userId, cart.version(), cart, null));
+        return cartEventPublisher.listen(userId)
+                .flatMapMany(events -> Flux.merge(events, snapshot));
+    }
+
+    @Override
+    public Mono<CartSummaryDTO> getCartSummary(UUID userId) {
+        return cartItemRepository.summarizeByUserId(userId);
+    }
+
+    @Override
+    public Mono<CartSummaryDTO> getAnonymousCartSummary(UUID id) {
+        return cartItemRepository.summarizeByCartId(id);
     }
 
     @Override
-    @Transactional
     public Mono<CartDTO> addItemToCart(UUID userId, CartItemRequestDTO request) {
         return validateRequest(request)
-                .flatMap(req -> getOrCreateCart(userId)
-                        .flatMap(cart -> addOrUpdateCartItem(cart, req))
-                        .flatMap(this::buildCartDTO));
+                .flatMap(req -> transactionalOperator.transactional(getOrCreateCart(userId)
+                        .flatMap(cart -> addItem(cart, req))))
+                .flatMap(cart -> writeThrough(cart, List.of(request.productId())));
     }
 
     @Override
-    @Transactional
     public Mono<CartDTO> addItemToAnonymousCart(UUID id, CartItemRequestDTO request) {
         return validateRequest(request)
-                .flatMap(req -> cartRepository.findById(id)
+                .flatMap(req -> transactionalOperator.transactional(cartRepository.findById(id)
                         .switchIfEmpty(Mono.defer(() -> {
                             Cart newCart = Cart.builder()
                                     .build();
                             return cartRepository.save(newCart);
                         }))
-                        .flatMap(cart -> addOrUpdateCartItem(cart, req))
-                        .flatMap(this::buildCartDTO));
+                        .flatMap(cart -> addItem(cart, req))))
+                .flatMap(cart -> writeThrough(cart, List.of(request.productId())));
     }
 
     @Override
-    @Transactional
     public Mono<CartDTO> removeItemFromCart(UUID userId, Integer productId) {
-        return getOrCreateCart(userId)
-                .flatMap(cart -> removeCartItem(cart, productId))
-                .flatMap(this::buildCartDTO);
+        return transactionalOperator.transactional(getOrCreateCart(userId)
+                        .flatMap(cart -> removeItem(cart, productId)))
+                .flatMap(cart -> writeThrough(cart, List.of(productId)));
     }
 
     @Override
-    @Transactional
     public Mono<CartDTO> removeItemFromAnonymousCart(UUID id, Integer productId) {
-        return cartRepository.findById(id)
-                .switchIfEmpty(Mono.error(new CartNotFoundException(id)))
-                .flatMap(cart -> removeCartItem(cart, productId))
-                .flatMap(this::buildCartDTO);
+        return transactionalOperator.transactional(cartRepository.findById(id)
+                        .switchIfEmpty(Mono.error(new CartNotFoundException(id)))
+                        .flatMap(cart -> removeItem(cart, productId)))
+                .flatMap(cart -> writeThrough(cart, List.of(productId)));
     }
 
     @Override
-    @Transactional
     public Mono<CartDTO> updateItemQuantity(UUID userId, CartItemRequestDTO request) {
         return validateRequest(request)
-                .flatMap(req -> getOrCreateCart(userId)
-                        .flatMap(cart -> updateCartItemQuantity(cart, req))
-                        .flatMap(this::buildCartDTO));
+                .flatMap(req -> transactionalOperator.transactional(getOrCreateCart(userId)
+                        .flatMap(cart -> updateItem(cart, req))))
+                .flatMap(cart -> writeThrough(cart, List.of(request.productId())));
     }
 
     @Override
-    @Transactional
     public Mono<CartDTO> updateItemQuantityInAnonymousCart(UUID id, CartItemRequestDTO request) {
         return validateRequest(request)
-                .flatMap(req -> cartRepository.findById(id)
+                .flatMap(req -> transactionalOperator.transactional(cartRepository.findById(id)
                         .switchIfEmpty(Mono.error(new CartNotFoundException(id)))
-                        .flatMap(cart -> updateCartItemQuantity(cart, req))
-                        .flatMap(this::buildCartDTO));
+                        .flatMap(cart -> updateItem(cart, req))))
+                .flatMap(cart -> writeThrough(cart, List.of(request.productId())));
+    }
+
+    @Override
+    public Mono<CartDTO> applyItemOperations(UUID userId, CartBatchRequestDTO request) {
+        return validateOperations(request.operations())
+                .flatMap(operations -> transactionalOperator.transactional(getOrCreateCart(userId)
+                        .flatMap(cart -> applyOperations(cart, operations))))
+                .flatMap(cart -> writeThrough(cart, request.operations().stream()
+                        .map(CartItemOperationDTO::productId)
+                        .toList()));
+    }
+
+    @Override
+    public Mono<CartDTO> applyItemOperationsToAnonymousCart(UUID id, CartBatchRequestDTO request) {
+        return validateOperations(request.operations())
+                .flatMap(operations -> transactionalOperator.transactional(cartRepository.findById(id)
+                        .switchIfEmpty(Mono.defer(() -> {
+                            Cart newCart = Cart.builder()
+                                    .build();
+                            return cartRepository.save(newCart);
+                        }))
+                        .flatMap(cart -> applyOperations(cart, operations))))
+                .flatMap(cart -> writeThrough(cart, request.operations().stream()
+                        .map(CartItemOperationDTO::productId)
+                        .toList()));
     }
 
     @Override
-    @Transactional
     public Mono<Void> clearCart(UUID userId) {
+        return transactionalOperator.transactional(cartRepository.findByUserId(userId)
+                        .switchIfEmpty(Mono.error(new CartNotFoundException(userId)))
+                        .flatMap(this::deleteCart))
+                .flatMap(cartId -> afterCartDeleted(userId, cartId));
+    }
+
+    /**
+     * Clears the cart only if it is still at {@code expectedVersion}; the row lock orders this against concurrent edits.
+     */
+    @Override
+    public Mono<Void> clearCart(UUID userId, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return clearCart(userId);
+        }
+        return transactionalOperator.transactional(cartRepository.findByUserIdForUpdate(userId)
+                        .switchIfEmpty(Mono.error(new CartNotFoundException(userId)))
+                        .flatMap(cart -> expectedVersion.equals(cart.getVersion())
+                                ? deleteCart(cart)
+                                : Mono.error(new CartVersionConflictException(cart.getId(), expectedVersion, cart.getVersion()))))
+                .flatMap(cartId -> afterCartDeleted(userId, cartId));
+    }
+
+    /**
+     * Lines and version are read in one snapshot, without product enrichment, for checkout.
+     */
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public Mono<CartSnapshotDTO> getCartSnapshot(UUID userId) {
         return cartRepository.findByUserId(userId)
                 .switchIfEmpty(Mono.error(new CartNotFoundException(userId)))
                 .flatMap(cart -> cartItemRepository.findByCartId(cart.getId())
-                        .flatMap(cartItemRepository::delete)
-                        .then(cartRepository.delete(cart)));
+                        .map(item -> new CartSnapshotDTO.LineDTO(item.getProductId(), item.getQuantity(), item.getPriceAtTime()))
+                        .collectList()
+                        .map(lines -> new CartSnapshotDTO(cart.getId().toString(), userId, cart.getVersion(), lines)));
+    }
+
+    private Mono<UUID> deleteCart(Cart cart) {
+        return cartItemRepository.deleteByCartId(cart.getId())
+                .then(cartRepository.delete(cart))
+                .thenReturn(cart.getId());
+    }
+
+    /**
+     * Runs once the delete has committed, so SSE clients never see a CLEARED event for a cart that still exists.
+     */
+    private Mono<Void> afterCartDeleted(UUID userId, UUID cartId) {
+        return cartCacheManager.evictCart(cartId)
+                .then(cartEventPublisher.publishCleared(userId));
     }
 
     @Override
-    @Transactional
     public Mono<Void> clearAnonymousCart(UUID id) {
-        return cartRepository.findById(id)
-                .switchIfEmpty(Mono.error(new CartNotFoundException(id)))
-                .flatMap(cart -> cartItemRepository.findByCartId(cart.getId())
-                        .flatMap(cartItemRepository::delete)
-                        .then(cartRepository.delete(cart)));
+        return transactionalOperator.transactional(cartRepository.findById(id)
+                        .switchIfEmpty(Mono.error(new CartNotFoundException(id)))
+                        .flatMap(cart -> cartItemRepository.deleteByCartId(cart.getId())
+                                .then(cartRepository.delete(cart))))
+                .then(cartCacheManager.evictCart(id));
     }
 
     @Override
-    @Transactional
     public Mono<CartDTO> mergeCarts(UUID userId, UUID id) {
-        return cartRepository.findById(id)
-                .switchIfEmpty(Mono.error(new CartNotFoundException(id)))
-                .flatMap(anonymousCart -> getOrCreateCart(userId)
-                        .flatMap(userCart ->
-                                cartItemRepository.findByCartId(anonymousCart.getId())
-                                        .flatMap(item -> addOrUpdateCartItem(userCart, new CartItemRequestDTO(item.getProductId(), item.getQuantity())))
+        return transactionalOperator.transactional(cartRepository.findById(id)
+                        .switchIfEmpty(Mono.error(new CartNotFoundException(id)))
+                        .flatMap(anonymousCart -> getOrCreateCart(userId)
+                                .flatMap(userCart -> cartItemRepository.findByCartId(anonymousCart.getId())
+                                        .map(CartItem::getProductId)
                                         .collectList()
-                                        .then(cartItemRepository.findByCartId(anonymousCart.getId())
-                                                .flatMap(cartItemRepository::delete)
-                                                .then())
-                                        .then(cartRepository.delete(anonymousCart))
-                                        .then(Mono.just(userCart))
-                        )
-                        .flatMap(this::buildCartDTO)
-                );
+                                        .flatMap(mergedProductIds -> bumpVersion(userCart)
+                                                .then(cartItemRepository.mergeItems(anonymousCart.getId(), userCart.getId()))
+                                                .then(cartItemRepository.deleteByCartId(anonymousCart.getId()))
+                                                .then(cartRepository.delete(anonymousCart))
+                                                .then(Mono.defer(() -> buildCartDTO(userCart)))
+                                                .map(cart -> new CartChange(cart, mergedProductIds))))))
+                .flatMap(change -> cartCacheManager.evictCart(id)
+                        .then(writeThrough(change.cart(), change.productIds())));
     }
 
 
@@ -170,69 +280,229 @@ public class CartServiceImpl implements CartService {
                 .switchIfEmpty(Mono.error(new CartOperationException("Quantity must be greater than 0")));
     }
 
-    private Mono<Cart> addOrUpdateCartItem(Cart cart, CartItemRequestDTO request) {
-        return cartItemRepository.findByCartIdAndProductId(cart.getId(), request.productId())
-                .flatMap(item -> {
-                    item.setQuantity(item.getQuantity() + request.quantity());
-                    return cartItemRepository.save(item);
-                })
-                .switchIfEmpty(createNewCartItem(cart.getId(), request))
-                .then(Mono.just(cart));
+    private Mono<List<CartItemOperationDTO>> validateOperations(List<CartItemOperationDTO> operations) {
+        return Flux.fromIterable(operations)
+                .filter(op -> op.type() != CartItemOperationDTO.Type.REMOVE && op.quantity() == null)
+                .next()
+                .flatMap(op -> Mono.<List<CartItemOperationDTO>>error(new CartOperationException(
+                        "Quantity is required for " + op.type() + " of productId " + op.productId())))
+                .switchIfEmpty(Mono.just(operations));
+    }
+
+    /**
+     * Applies all operations in order after one batched product lookup for the added products,
+     * then rebuilds the view once.
+     */
+    private Mono<CartDTO> applyOperations(Cart cart, List<CartItemOperationDTO> operations) {
+        List<Integer> addedProductIds = operations.stream()
+                .filter(op -> op.type() == CartItemOperationDTO.Type.ADD)
+                .map(CartItemOperationDTO::productId)
+                .distinct()
+                .toList();
+        return bumpVersion(cart)
+                .then(productCache.getFreshProductsByIds(addedProductIds).collectMap(ProductDTO::id))
+                .flatMap(products -> Flux.fromIterable(operations)
+                        .concatMap(op -> applyOperation(cart, op, products))
+                        .then())
+                .then(Mono.defer(() -> buildCartDTO(cart)));
+    }
+
+    private Mono<?> applyOperation(Cart cart, CartItemOperationDTO op, Map<Integer, ProductDTO> products) {
+        return switch (op.type()) {
+            case ADD -> Mono.justOrEmpty(products.get(op.productId()))
+                    .switchIfEmpty(Mono.error(new CartOperationException("Product not found with ID: " + op.productId())))
+                    .flatMap(product -> cartItemRepository.upsertQuantity(cart.getId(), op.productId(), op.quantity(), product.price()));
+            case UPDATE -> updateCartItemQuantity(cart, new CartItemRequestDTO(op.productId(), op.quantity()));
+            case REMOVE -> removeCartItem(cart, op.productId());
+        };
+    }
+
+    private Mono<CartDTO> addItem(Cart cart, CartItemRequestDTO request) {
+        return bumpVersion(cart)
+                .then(addOrUpdateCartItem(cart, request))
+                .flatMap(change -> applyToView(cart, lines -> upsertLine(lines, change.item(), change.product())));
     }
 
-    private Mono<CartItem> createNewCartItem(UUID cartId, CartItemRequestDTO request) {
-        return productClient.getProductById(request.productId())
+    private Mono<CartDTO> removeItem(Cart cart, Integer productId) {
+        return bumpVersion(cart)
+                .then(removeCartItem(cart, productId))
+                .then(applyToView(cart, lines -> lines.stream()
+                        .filter(line -> !line.productId().equals(productId))
+                        .toList()));
+    }
+
+    private Mono<CartDTO> updateItem(Cart cart, CartItemRequestDTO request) {
+        return bumpVersion(cart)
+                .then(updateCartItemQuantity(cart, request))
+                .flatMap(item -> applyToView(cart, lines -> upsertLine(lines, item, null)));
+    }
+
+    /**
+     * Increments an existing line in one statement; only a new line needs the product price and an upsert,
+     * which also absorbs a concurrent insert of the same product.
+     */
+    private Mono<ItemChange> addOrUpdateCartItem(Cart cart, CartItemRequestDTO request) {
+        return cartItemRepository.incrementQuantity(cart.getId(), request.productId(), request.quantity())
+                .map(item -> new ItemChange(item, null))
+                .switchIfEmpty(Mono.defer(() -> createNewCartItem(cart.getId(), request)));
+    }
+
+    private Mono<ItemChange> createNewCartItem(UUID cartId, CartItemRequestDTO request) {
+        return productCache.getFreshProductById(request.productId())
                 .switchIfEmpty(Mono.error(new CartOperationException("Product not found with ID: " + request.productId())))
-                .flatMap(product -> {
-                    CartItem newItem = CartItem.builder()
-                            .cartId(cartId)
-                            .productId(request.productId())
-                            .quantity(request.quantity())
-                            .priceAtTime(product.price())
-                            .build();
-                    return cartItemRepository.save(newItem);
-                });
+                .flatMap(product -> cartItemRepository.upsertQuantity(cartId, request.productId(), request.quantity(), product.price())
+                        .map(item -> new ItemChange(item, product)));
     }
 
-    private Mono<Cart> removeCartItem(Cart cart, Integer productId) {
+    private Mono<Void> removeCartItem(Cart cart, Integer productId) {
         return cartItemRepository.findByCartIdAndProductId(cart.getId(), productId)
                 .switchIfEmpty(Mono.error(new CartOperationException("Item with productId " + productId + " not found in cart")))
-                .flatMap(cartItemRepository::delete)
-                .then(Mono.just(cart));
+                .flatMap(cartItemRepository::delete);
     }
 
-    private Mono<Cart> updateCartItemQuantity(Cart cart, CartItemRequestDTO request) {
+    private Mono<CartItem> updateCartItemQuantity(Cart cart, CartItemRequestDTO request) {
         return cartItemRepository.findByCartIdAndProductId(cart.getId(), request.productId())
                 .switchIfEmpty(Mono.error(new CartOperationException("Item with productId " + request.productId() + " not found in cart")))
                 .flatMap(item -> {
                     item.setQuantity(request.quantity());
                     return cartItemRepository.save(item);
-                })
-                .then(Mono.just(cart));
+                });
+    }
+
+    /**
+     * Bumps the cart version in Postgres; the row lock also serializes concurrent mutations of the same cart.
+     */
+    private Mono<Void> bumpVersion(Cart cart) {
+        return cartRepository.incrementVersion(cart.getId())
+                .doOnNext(cart::setVersion)
+                .then();
+    }
+
+    /**
+     * Caches the whole view, but publishes only the lines of the products the change touched.
+     */
+    private Mono<CartDTO> writeThrough(CartDTO cart, Collection<Integer> changedProductIds) {
+        return cartCacheManager.cacheCart(cart)
+                .flatMap(cached -> cartEventPublisher.publishUpdated(cached, changedProductIds));
+    }
+
+    private Mono<CartDTO> renderCart(Cart cart) {
+        return cartCacheManager.getCart(cart.getId())
+                .filter(view -> Objects.equals(view.version(), cart.getVersion()))
+                .switchIfEmpty(Mono.defer(() -> buildCartDTO(cart)
+                        .flatMap(cartCacheManager::cacheCart)));
+    }
+
+    /**
+     * Applies a line delta to the materialized view if it is exactly one version behind the bumped cart,
+     * otherwise rebuilds the view from Postgres. The caller writes the result through to Redis after the commit.
+     */
+    private Mono<CartDTO> applyToView(Cart cart, Function<List<CartDTO.CartItemDTO>, List<CartDTO.CartItemDTO>> delta) {
+        return Mono.defer(() -> {
+            long previousVersion = cart.getVersion() - 1;
+            return cartCacheManager.getCart(cart.getId())
+                    .filter(view -> Objects.equals(view.version(), previousVersion))
+                    .mapNotNull(view -> {
+                        List<CartDTO.CartItemDTO> lines = delta.apply(view.items());
+                        return lines == null ? null : new CartDTO(view.id(), view.userId(), lines,
+                                calculateTotalAmount(lines), view.createdAt(), cart.getVersion(), view.partial());
+                    })
+                    .switchIfEmpty(Mono.defer(() -> buildCartDTO(cart)));
+        });
+    }
+
+    /**
+     * Returns {@code null} when the view has no line for a product it cannot describe, forcing a rebuild.
+     */
+    private List<CartDTO.CartItemDTO> upsertLine(List<CartDTO.CartItemDTO> lines, CartItem item, ProductDTO product) {
+        List<CartDTO.CartItemDTO> result = new ArrayList<>(lines.size() + 1);
+        boolean replaced = false;
+        for (CartDTO.CartItemDTO line : lines) {
+            if (line.productId().equals(item.getProductId())) {
+                result.add(cartMapper.toCartItemDTO(item, line.productName(), line.imageUrl()));
+                replaced = true;
+            } else {
+                result.add(line);
+            }
+        }
+        if (!replaced) {
+            if (product == null) {
+                return null;
+            }
+            result.add(mapToCartItemDTO(item, product));
+        }
+        return result;
     }
 
     private Mono<CartDTO> buildCartDTO(Cart cart) {
+        long start = System.nanoTime();
         return cartItemRepository.findByCartId(cart.getId())
                 .collectList()
-                .map(items -> {
+                .flatMap(items -> {
                     cart.setItems(items);
-                    return cart;
+                    List<Integer> productIds = items.stream()
+                            .map(CartItem::getProductId)
+                            .toList();
+                    return lookupProducts(cart, productIds)
+                            .map(lookup -> {
+                                List<CartDTO.CartItemDTO> itemDTOs = items.stream()
+                                        .map(item -> mapToCartItemDTO(item, lookup.products().get(item.getProductId())))
+                                        .toList();
+                                BigDecimal totalAmount = calculateTotalAmount(itemDTOs);
+                                return cartMapper.toCartDTO(cart, itemDTOs, totalAmount, lookup.partial());
+                            });
                 })
-                .flatMap(c -> Flux.fromIterable(c.getItems())
-                        .flatMap(this::mapToCartItemDTO)
-                        .collectList()
-                        .map(itemDTOs -> {
-                            BigDecimal totalAmount = calculateTotalAmount(itemDTOs);
-                            return cartMapper.toCartDTO(c, itemDTOs, totalAmount);
-                        }));
+                .doOnSuccess(dto -> recordRender(dto, start));
     }
 
-    private Mono<CartDTO.CartItemDTO> mapToCartItemDTO(CartItem item) {
-        return productClient.getProductById(item.getProductId())
-                .defaultIfEmpty(new ProductDTO(item.getProductId(), "Unknown", item.getPriceAtTime(), null))
-                .map(product -> cartMapper.toCartItemDTO(item, product.name(), product.imageUrl()));
+    /**
+     * Falls back to already cached products when product-detail fails, times out or the breaker is open;
+     * line prices and totals come from price_at_time either way.
+     */
+    private Mono<ProductLookup> lookupProducts(Cart cart, List<Integer> productIds) {
+        return productCache.getProductsByIds(productIds)
+                .collectMap(ProductDTO::id)
+                .timeout(productBudget)
+                .map(products -> new ProductLookup(products, false))
+                .onErrorResume(e -> {
+                    log.warn("Rendering cart {} without product-detail: {}", cart.getId(), e.toString());
+                    return Mono.fromSupplier(() -> new ProductLookup(productCache.getCachedProducts(productIds), true));
+                });
+    }
+
+    private CartDTO.CartItemDTO mapToCartItemDTO(CartItem item, ProductDTO product) {
+        ProductDTO source = product != null
+                ? product
+                : new ProductDTO(item.getProductId(), "Unknown", item.getPriceAtTime(), null);
+        return cartMapper.toCartItemDTO(item, source.name(), source.imageUrl());
+    }
+
+    private void recordRender(CartDTO dto, long start) {
+        if (dto == null) {
+            return;
+        }
+        Timer.builder("cart.render")
+                .description("Time to build a CartDTO, including the product lookup")
+                .tag("lines", linesBucket(dto.items().size()))
+                .tag("partial", String.valueOf(dto.partial()))
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
     }
 
+    private String linesBucket(int lines) {
+        if (lines == 0) return "0";
+        if (lines <= 10) return "1-10";
+        if (lines <= 50) return "11-50";
+        if (lines <= 200) return "51-200";
+        return "200+";
+    }
+
+    private record ItemChange(CartItem item, ProductDTO product) {}
+
+    private record CartChange(CartDTO cart, List<Integer> productIds) {}
+
+    private record ProductLookup(Map<Integer, ProductDTO> products, boolean partial) {}
+
     private BigDecimal calculateTotalAmount(List<CartDTO.CartItemDTO> items) {
         return items.stream()
                 .filter(item -> item.priceAtTime() != null)
@@ -0,0 +1,130 @@
+package org.example.client;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.example.dto.ProductDTO;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerResponse;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Before/after harness for the product lookup of a cart render, the part that scales with line count. A fake
+ * product-detail answers after {@link #LATENCY} and serves at most {@link #CAPACITY} requests at once, like a service
+ * in front of a small connection pool. "Before" is the old render, one {@code getProductById} per line; "after" is
+ * {@code getProductsByIds}. The client pool queues instead of refusing acquires, so the old fan-out of large carts
+ * is measured rather than failing. The median of {@link #RUNS} renders per line count is printed with the request
+ * count; only the request counts are asserted, as timings depend on the machine.
+ */
+class ProductClientRenderBenchmarkTest {
+
+    private static final Duration LATENCY = Duration.ofMillis(10);
+    private static final int CAPACITY = 8;
+    private static final int BATCH_SIZE = 50;
+    private static final int RUNS = 7;
+    private static final int[] LINE_COUNTS = {1, 10, 30, 100, 300};
+
+    private static final AtomicInteger requests = new AtomicInteger();
+    private static final Semaphore capacity = new Semaphore(CAPACITY, true);
+
+    private static DisposableServer productDetail;
+    private static ConnectionProvider connectionProvider;
+    private static ProductClient productClient;
+
+    @BeforeAll
+    static void startProductDetail() {
+        productDetail = HttpServer.create()
+                .port(0)
+                .route(routes -> routes
+                        .get("/api/products", (request, response) -> respond(response, "[" +
+                                new QueryStringDecoder(request.uri()).parameters().getOrDefault("ids", List.of()).stream()
+                                        .map(ProductClientRenderBenchmarkTest::product)
+                                        .collect(Collectors.joining(",")) + "]"))
+                        .get("/api/products/{id}", (request, response) -> respond(response, product(request.param("id")))))
+                .bindNow();
+        connectionProvider = ConnectionProvider.builder("product-detail-benchmark")
+                .maxConnections(16)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        WebClient.Builder webClientBuilder = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)));
+        productClient = new ProductClient(webClientBuilder, CircuitBreaker.ofDefaults("product-detail-benchmark"),
+                "http://localhost:" + productDetail.port() + "/api/products", BATCH_SIZE, 4, Duration.ofSeconds(30));
+    }
+
+    @AfterAll
+    static void stopProductDetail() {
+        connectionProvider.dispose();
+        productDetail.disposeNow();
+    }
+
+    @Test
+    void batchedLookupScalesWithBatchesNotLines() {
+        System.out.printf("%n%8s %14s %10s %14s %10s%n", "lines", "per-line ms", "requests", "batched ms", "requests");
+        for (int lines : LINE_COUNTS) {
+            List<Integer> productIds = IntStream.rangeClosed(1, lines).boxed().toList();
+
+            Result before = measure(() -> Flux.fromIterable(productIds)
+                    .flatMap(productClient::getProductById)
+                    .collectList());
+            Result after = measure(() -> productClient.getProductsByIds(productIds)
+                    .collectList());
+
+            System.out.printf("%8d %14.1f %10d %14.1f %10d%n", lines, before.medianMillis(), before.requests(),
+                    after.medianMillis(), after.requests());
+            assertEquals(lines, before.requests());
+            assertEquals((lines + BATCH_SIZE - 1) / BATCH_SIZE, after.requests());
+        }
+    }
+
+    private Result measure(Supplier<Mono<List<ProductDTO>>> render) {
+        render.get().block();
+        List<Double> millis = new ArrayList<>();
+        int requestsPerRender = 0;
+        for (int run = 0; run < RUNS; run++) {
+            requests.set(0);
+            long start = System.nanoTime();
+            render.get().block();
+            millis.add((System.nanoTime() - start) / 1_000_000.0);
+            requestsPerRender = requests.get();
+        }
+        Collections.sort(millis);
+        return new Result(millis.get(millis.size() / 2), requestsPerRender);
+    }
+
+    private static Mono<Void> respond(HttpServerResponse response, String body) {
+        requests.incrementAndGet();
+        return Mono.fromRunnable(capacity::acquireUninterruptibly)
+                .subscribeOn(Schedulers.boundedElastic())
+                .then(Mono.delay(LATENCY))
+                .doFinally(signal -> capacity.release())
+                .then(response.header("Content-Type", "application/json").sendString(Mono.just(body)).then());
+    }
+
+    private static String product(String id) {
+        return "{\"id\":" + id + ",\"name\":\"Product " + id + "\",\"price\":10.00,\"imageUrl\":null}";
+    }
+
+    private record Result(double medianMillis, int requests) {}
+}
@@ -7,6 +7,8 @@ interface OrderQueryParams {
     endDate?: string;
     page?: number;
     size?: number;
+    cursor?: string;
+    includeTotal?: boolean;
 }
 
 export const getOrders = async (params: OrderQueryParams = {}): Promise<OrderListDTO> => {
@@ -18,6 +20,7 @@ export const getOrders = async (params: OrderQueryParams = {}): Promise<OrderLis
         endDate: endDate ? new Date(endDate).toISOString() : undefined,
         page: params.page ?? 0,
         size: params.size ?? 10,
+        includeTotal: params.includeTotal ?? false,
     };
 
     const response = await api.get<OrderListDTO>('/api/orders', {
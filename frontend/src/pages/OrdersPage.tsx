@@ -9,9 +9,12 @@ export default function OrdersPage() {
         status: '',
         startDate: '',
         endDate: '',
-        page: 0,
         size: 10,
     });
+    // cursors[i] fetches page i; pages past the first follow the previous page's nextCursor instead of an OFFSET
+    const [cursors, setCursors] = useState<(string | undefined)[]>([undefined]);
+    const [totalPages, setTotalPages] = useState<number | null>(null);
+    const page = cursors.length - 1;
 
     const [expandedOrderId, setExpandedOrderId] = useState<number | null>(null);
 
@@ -20,16 +23,30 @@ export default function OrdersPage() {
     };
 
     const { data, isLoading, error, refetch } = useQuery<OrderListDTO>({
-        queryKey: ['orders', filters],
-        queryFn: () => getOrders(filters),
+        queryKey: ['orders', filters, cursors[page]],
+        queryFn: async () => {
+            // The page count is shown from the first page on; only that request pays for counting the orders
+            const result = await getOrders({ ...filters, cursor: cursors[page], includeTotal: page === 0 });
+            if (page === 0) {
+                setTotalPages(result.totalPages);
+            }
+            return result;
+        },
     });
 
     const handleFilterChange = (e: React.ChangeEvent<HTMLInputElement | HTMLSelectElement>) => {
-        setFilters({ ...filters, [e.target.name]: e.target.value, page: 0 });
+        setFilters({ ...filters, [e.target.name]: e.target.value });
+        setCursors([undefined]);
+    };
+
+    const handleNextPage = () => {
+        if (data?.nextCursor) {
+            setCursors([...cursors, data.nextCursor]);
+        }
     };
 
-    const handlePageChange = (newPage: number) => {
-        setFilters({ ...filters, page: newPage });
+    const handlePreviousPage = () => {
+        setCursors(cursors.slice(0, -1));
     };
 
     const handleDeleteOrder = async (orderId: number) => {
@@ -116,18 +133,18 @@ export default function OrdersPage() {
 
                     <div className="flex justify-center gap-4 mt-8">
                         <button
-                            onClick={() => handlePageChange(filters.page - 1)}
-                            disabled={filters.page === 0}
+                            onClick={handlePreviousPage}
+                            disabled={page === 0}
                             className="px-6 py-3 bg-gradient-to-r from-gray-500 to-gray-600 text-white rounded-xl shadow-lg hover:from-gray-600 hover:to-gray-700 focus:outline-none focus:ring-2 focus:ring-gray-500 focus:ring-opacity-50 transition-all duration-300 disabled:bg-gray-400 disabled:cursor-not-allowed text-lg"
                         >
                             Назад
                         </button>
                         <span className="self-center text-lg text-gray-700">
-                            Страница {filters.page + 1} из {data?.totalPages || 1}
+                            Страница {page + 1} из {totalPages || 1}
                         </span>
                         <button
-                            onClick={() => handlePageChange(filters.page + 1)}
-                            disabled={filters.page + 1 >= (data?.totalPages || 1)}
+                            onClick={handleNextPage}
+                            disabled={!data?.nextCursor}
                             className="px-6 py-3 bg-gradient-to-r from-gray-500 to-gray-600 text-white rounded-xl shadow-lg hover:from-gray-600 hover:to-gray-700 focus:outline-none focus:ring-2 focus:ring-gray-500 focus:ring-opacity-50 transition-all duration-300 disabled:bg-gray-400 disabled:cursor-not-allowed text-lg"
                         >
                             Вперед
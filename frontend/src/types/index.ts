@@ -55,8 +55,9 @@ export interface OrderListDTO {
     orders: OrderDTO[];
     page: number;
     size: number;
-    totalPages: number;
-    totalElements: number;
+    totalPages: number | null;
+    totalElements: number | null;
+    nextCursor: string | null;
 }
 
 export interface OrderDTO {
@@ -1,5 +1,6 @@
 package org.example.config;
 
+import org.example.dto.OrderCacheEventDTO;
 import org.example.dto.OrderDetailDTO;
 import org.example.dto.OrderItemListDTO;
 import org.example.dto.OrderListDTO;
@@ -7,6 +8,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
 
 @Configuration
 public class OrderRedisConfig {
@@ -28,4 +30,15 @@ public class OrderRedisConfig {
             ReactiveRedisConnectionFactory factory, RedisConfig redisConfig) {
         return redisConfig.createReactiveRedisTemplate(factory, OrderItemListDTO.class);
     }
+
+    @Bean
+    public ReactiveRedisTemplate<String, OrderCacheEventDTO> orderCacheEventRedisTemplate(
+            ReactiveRedisConnectionFactory factory, RedisConfig redisConfig) {
+        return redisConfig.createReactiveRedisTemplate(factory, OrderCacheEventDTO.class);
+    }
+
+    @Bean
+    public ReactiveRedisMessageListenerContainer orderCacheEventListenerContainer(ReactiveRedisConnectionFactory factory) {
+        return new ReactiveRedisMessageListenerContainer(factory);
+    }
 }
\ No newline at end of file
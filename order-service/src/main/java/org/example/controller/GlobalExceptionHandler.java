@@ -4,6 +4,9 @@ import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
 import org.example.exception.ApiError;
 import org.example.exception.BaseExceptionHandler;
+import org.example.exception.InvalidCursorException;
+import org.example.exception.InvalidSortException;
+import org.example.exception.InvalidStatusTransitionException;
 import org.example.exception.ProductClientException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -25,6 +28,24 @@ public class GlobalExceptionHandler extends BaseExceptionHandler {
         return createErrorResponse(ex, exchange, HttpStatus.SERVICE_UNAVAILABLE, "Product Service Unavailable");
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    public Mono<ResponseEntity<ApiError>> handleInvalidCursor(InvalidCursorException ex, ServerWebExchange exchange) {
+        log.debug("Invalid cursor: {}", ex.getMessage());
+        return createErrorResponse(ex, exchange, HttpStatus.BAD_REQUEST, "Invalid Cursor");
+    }
+
+    @ExceptionHandler(InvalidSortException.class)
+    public Mono<ResponseEntity<ApiError>> handleInvalidSort(InvalidSortException ex, ServerWebExchange exchange) {
+        log.debug("Invalid sort: {}", ex.getMessage());
+        return createErrorResponse(ex, exchange, HttpStatus.BAD_REQUEST, "Invalid Sort");
+    }
+
+    @ExceptionHandler(InvalidStatusTransitionException.class)
+    public Mono<ResponseEntity<ApiError>> handleInvalidStatusTransition(InvalidStatusTransitionException ex, ServerWebExchange exchange) {
+        log.debug("Invalid status transition: {}", ex.getMessage());
+        return createErrorResponse(ex, exchange, HttpStatus.CONFLICT, "Invalid Status Transition");
+    }
+
     @ExceptionHandler(WebExchangeBindException.class)
     public Mono<ResponseEntity<ApiError>> handleValidationException(WebExchangeBindException ex, ServerWebExchange exchange) {
         String message = ex.getFieldErrors().stream()
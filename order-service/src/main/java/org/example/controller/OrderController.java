@@ -6,12 +6,17 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.dto.BulkOrderStatusRequestDTO;
+import org.example.dto.BulkOrderStatusResultDTO;
 import org.example.dto.CreateOrderRequestDTO;
 import org.example.dto.OrderDetailDTO;
 import org.example.dto.OrderItemListDTO;
 import org.example.dto.OrderListDTO;
+import org.example.dto.OrderStatusDTO;
+import org.example.dto.UpdateOrderStatusRequestDTO;
 import org.example.service.OrderService;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
@@ -21,6 +26,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
@@ -41,12 +47,37 @@ public class OrderController {
             @RequestParam(required = false) String status,
             @RequestParam(required = false) LocalDateTime startDate,
             @RequestParam(required = false) LocalDateTime endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
             Pageable pageable) {
         UUID userId = UUID.fromString(jwt.getSubject());
-        log.debug("Fetching orders for user: {} with status: {}, startDate: {}, endDate: {}", userId, status, startDate, endDate);
-        return orderService.getOrders(userId, pageable, status, startDate, endDate)
+        log.debug("Fetching orders for user: {} with status: {}, startDate: {}, endDate: {}, cursor: {}",
+                userId, status, startDate, endDate, cursor);
+        return orderService.getOrders(userId, pageable, status, startDate, endDate, cursor, includeTotal)
                 .map(ResponseEntity::ok)
-                .defaultIfEmpty(ResponseEntity.ok(new OrderListDTO(List.of(), 0, pageable.getPageSize(), 0, 0)));
+                .defaultIfEmpty(ResponseEntity.ok(new OrderListDTO(List.of(), 0, pageable.getPageSize(), null, null, null)));
+    }
+
+    @Operation(summary = "Get order statuses", description = "Returns the status of each existing order among the given IDs, for purchase-service")
+    @ApiResponse(responseCode = "200", description = "Statuses found")
+    @PreAuthorize("hasRole('purchase-service')")
+    @GetMapping("/statuses")
+    public Flux<OrderStatusDTO> getOrderStatuses(
+            @RequestParam @Size(max = 500) List<Integer> ids) {
+        log.debug("Fetching statuses for {} orders", ids.size());
+        return orderService.getOrderStatuses(ids);
+    }
+
+    @Operation(summary = "Update order statuses in bulk",
+            description = "Moves every listed order that is allowed to reach the status in one statement, for fulfilment batches; the others are reported as skipped")
+    @ApiResponse(responseCode = "200", description = "Batch applied",
+            content = @Content(schema = @Schema(implementation = BulkOrderStatusResultDTO.class)))
+    @PreAuthorize("hasRole('purchase-service')")
+    @PatchMapping("/status")
+    public Mono<BulkOrderStatusResultDTO> updateOrderStatuses(
+            @Valid @RequestBody BulkOrderStatusRequestDTO request) {
+        log.debug("Moving {} orders to status: {}", request.orderIds().size(), request.status());
+        return orderService.updateOrderStatuses(request.orderIds(), request.status());
     }
 
     @GetMapping("/{orderId}")
@@ -70,15 +101,17 @@ public class OrderController {
                 .map(ResponseEntity::ok);
     }
 
-    @Operation(summary = "Create order", description = "Creates a new order for the user")
+    @Operation(summary = "Create order",
+            description = "Creates a new order for the user; a repeated Idempotency-Key returns the order created first")
     @ApiResponse(responseCode = "201", description = "Order created",
             content = @Content(schema = @Schema(implementation = OrderDetailDTO.class)))
     @PostMapping
     public Mono<ResponseEntity<OrderDetailDTO>> createOrder(
+            @RequestHeader(value = "Idempotency-Key", required = false) @Size(max = 100) String idempotencyKey,
             @Valid @RequestBody CreateOrderRequestDTO request) {
         UUID userId = request.userId();
         log.debug("Creating order for user: {}", userId);
-        return orderService.createOrder(userId, request)
+        return orderService.createOrder(userId, request, idempotencyKey)
                 .map(order -> ResponseEntity.status(HttpStatus.CREATED).body(order))
                 .onErrorMap(e -> {
                     log.error("Error creating order for user {}: {}", userId, e.getMessage(), e);
@@ -86,6 +119,35 @@ public class OrderController {
                 });
     }
 
+    @Operation(summary = "Get order by idempotency key",
+            description = "Returns the order created with the given Idempotency-Key, for purchase-service")
+    @ApiResponse(responseCode = "200", description = "Order found",
+            content = @Content(schema = @Schema(implementation = OrderDetailDTO.class)))
+    @ApiResponse(responseCode = "404", description = "No order was created with this key")
+    @PreAuthorize("hasRole('purchase-service')")
+    @GetMapping("/idempotency-keys/{idempotencyKey}")
+    public Mono<ResponseEntity<OrderDetailDTO>> getOrderByIdempotencyKey(
+            @PathVariable @Size(max = 100) String idempotencyKey) {
+        log.debug("Fetching order with idempotency key: {}", idempotencyKey);
+        return orderService.getOrderByIdempotencyKey(idempotencyKey)
+                .map(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Update order status",
+            description = "Moves the order to the given status if its current status allows it, for purchase-service")
+    @ApiResponse(responseCode = "200", description = "Status updated",
+            content = @Content(schema = @Schema(implementation = OrderDetailDTO.class)))
+    @ApiResponse(responseCode = "409", description = "Transition not allowed from the current status")
+    @PreAuthorize("hasRole('purchase-service')")
+    @PatchMapping("/{orderId}/status")
+    public Mono<ResponseEntity<OrderDetailDTO>> updateOrderStatus(
+            @PathVariable @Min(1) Integer orderId,
+            @Valid @RequestBody UpdateOrderStatusRequestDTO request) {
+        log.debug("Updating status of order {} to: {}", orderId, request.status());
+        return orderService.updateOrderStatus(orderId, request.status())
+                .map(ResponseEntity::ok);
+    }
+
     @DeleteMapping("/{orderId}")
     public Mono<ResponseEntity<Void>> deleteOrder(
             @AuthenticationPrincipal Jwt jwt,
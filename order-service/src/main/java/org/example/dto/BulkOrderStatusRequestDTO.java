@@ -0,0 +1,13 @@
+package org.example.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import org.example.enums.OrderStatus;
+
+import java.util.List;
+
+public record BulkOrderStatusRequestDTO(
+        @NotEmpty @Size(max = 10000) List<@NotNull Integer> orderIds,
+        @NotNull OrderStatus status
+) {}
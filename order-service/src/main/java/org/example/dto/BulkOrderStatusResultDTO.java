@@ -0,0 +1,12 @@
+package org.example.dto;
+
+import org.example.enums.OrderStatus;
+
+import java.util.List;
+
+public record BulkOrderStatusResultDTO(
+        OrderStatus status,
+        int requested,
+        int updated,
+        List<Integer> skippedOrderIds
+) {}
@@ -0,0 +1,9 @@
+package org.example.dto;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public record OrderCacheEventDTO(
+        Map<UUID, List<Integer>> orderIdsByUser
+) {}
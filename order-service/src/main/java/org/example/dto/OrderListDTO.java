@@ -9,8 +9,9 @@ public record OrderListDTO(
         List<OrderDTO> orders,
         int page,
         int size,
-        int totalPages,
-        long totalElements
+        Integer totalPages,
+        Long totalElements,
+        String nextCursor
 ) {
     public record OrderDTO(
             Integer id,
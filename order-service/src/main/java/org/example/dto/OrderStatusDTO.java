@@ -0,0 +1,8 @@
+package org.example.dto;
+
+import org.example.enums.OrderStatus;
+
+public record OrderStatusDTO(
+        Integer id,
+        OrderStatus status
+) {}
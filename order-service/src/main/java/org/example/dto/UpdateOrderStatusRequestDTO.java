@@ -0,0 +1,8 @@
+package org.example.dto;
+
+import jakarta.validation.constraints.NotNull;
+import org.example.enums.OrderStatus;
+
+public record UpdateOrderStatusRequestDTO(
+        @NotNull OrderStatus status
+) {}
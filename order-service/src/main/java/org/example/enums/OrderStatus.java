@@ -1,7 +1,31 @@
 package org.example.enums;
 
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An order starts {@link #PENDING} and moves once, to {@link #COMPLETED} or {@link #CANCELLED}; both are final.
+ */
 public enum OrderStatus {
     PENDING,
     COMPLETED,
-    CANCELLED
-}
\ No newline at end of file
+    CANCELLED;
+
+    public boolean isFinal() {
+        return this != PENDING;
+    }
+
+    public boolean canTransitionTo(OrderStatus target) {
+        return !isFinal() && target.isFinal();
+    }
+
+    /**
+     * Names of the statuses an order may be in to move to {@code target}, ready to bind to a status column.
+     */
+    public static List<String> sourcesOf(OrderStatus target) {
+        return Arrays.stream(values())
+                .filter(status -> status.canTransitionTo(target))
+                .map(Enum::name)
+                .toList();
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.exception;
+
+public class InvalidCursorException extends ServiceException {
+    public InvalidCursorException(String cursor) {
+        super("Invalid page cursor: " + cursor);
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.exception;
+
+public class InvalidSortException extends ServiceException {
+    public InvalidSortException(String message) {
+        super(message);
+    }
+}
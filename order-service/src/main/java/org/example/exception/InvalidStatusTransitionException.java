@@ -0,0 +1,13 @@
+package org.example.exception;
+
+import org.example.enums.OrderStatus;
+
+public class InvalidStatusTransitionException extends ServiceException {
+    public InvalidStatusTransitionException(Integer orderId, OrderStatus from, OrderStatus to) {
+        super("Order " + orderId + " cannot move from " + from + " to " + to);
+    }
+
+    public InvalidStatusTransitionException(OrderStatus to) {
+        super("No order can move to " + to);
+    }
+}
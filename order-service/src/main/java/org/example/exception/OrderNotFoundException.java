@@ -4,4 +4,8 @@ public class OrderNotFoundException extends NotFoundException {
     public OrderNotFoundException(Integer id) {
         super("Order not found with id: ", id);
     }
+
+    public OrderNotFoundException(String idempotencyKey) {
+        super("Order not found with idempotency key: {0}", idempotencyKey);
+    }
 }
\ No newline at end of file
@@ -17,7 +17,8 @@ public record Order(
         @NonNull @Column("user_id") UUID userId,
         @NonNull @Column("order_date") LocalDateTime orderDate,
         @NonNull OrderStatus status,
-        @Column("total_amount") BigDecimal totalAmount
+        @Column("total_amount") BigDecimal totalAmount,
+        @Column("idempotency_key") String idempotencyKey
 ) {
     public static Order fromRow(Row row) {
         return new Order(
@@ -25,7 +26,8 @@ public record Order(
                 row.get("user_id", UUID.class),
                 row.get("order_date", LocalDateTime.class),
                 row.get("status", OrderStatus.class),
-                row.get("total_amount", BigDecimal.class)
+                row.get("total_amount", BigDecimal.class),
+                row.get("idempotency_key", String.class)
         );
     }
 }
\ No newline at end of file
@@ -1,13 +1,13 @@
 package org.example.repository;
 
 import org.example.model.Order;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 public interface OrderRepository extends ReactiveCrudRepository<Order, Integer> {
@@ -15,21 +15,22 @@ public interface OrderRepository extends ReactiveCrudRepository<Order, Integer>
     @Query("SELECT * FROM orders WHERE id = :id AND user_id = :userId")
     Mono<Order> findByIdAndUserId(Integer id, UUID userId);
 
-    @Query("SELECT * FROM orders WHERE user_id = :userId " +
-            "AND (:status IS NULL OR status = :status) " +
-            "AND (:startDate IS NULL OR order_date >= :startDate) " +
-            "AND (:endDate IS NULL OR order_date <= :endDate) " +
-            "ORDER BY :orderBy " +
-            "OFFSET :offset LIMIT :limit")
-    Flux<Order> findOrders(UUID userId, String status, LocalDateTime startDate, LocalDateTime endDate, String orderBy, long offset, int limit);
-
-    @Query("SELECT COUNT(*) FROM orders WHERE user_id = :userId " +
-            "AND (:status IS NULL OR status = :status) " +
-            "AND (:startDate IS NULL OR order_date >= :startDate) " +
-            "AND (:endDate IS NULL OR order_date <= :endDate)")
-    Mono<Long> countOrders(UUID userId, String status, LocalDateTime startDate, LocalDateTime endDate);
+    @Query("SELECT * FROM orders WHERE idempotency_key = :idempotencyKey")
+    Mono<Order> findByIdempotencyKey(String idempotencyKey);
 
+    @Query("SELECT * FROM orders WHERE id IN (:ids)")
+    Flux<Order> findAllByIds(Collection<Integer> ids);
 
     @Query("DELETE FROM orders WHERE id = :id AND user_id = :userId")
     Mono<Void> deleteByIdAndUserId(Integer id, UUID userId);
+
+    @Query("UPDATE orders SET status = :status " +
+            "WHERE id = :id AND status IN (:fromStatuses) " +
+            "RETURNING *")
+    Mono<Order> updateStatus(Integer id, String status, List<String> fromStatuses);
+
+    @Query("UPDATE orders SET status = :status " +
+            "WHERE id = ANY(:ids) AND status IN (:fromStatuses) " +
+            "RETURNING *")
+    Flux<Order> updateStatuses(Integer[] ids, String status, List<String> fromStatuses);
 }
\ No newline at end of file
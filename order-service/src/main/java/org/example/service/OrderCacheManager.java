@@ -7,27 +7,27 @@ import org.springframework.data.domain.Pageable;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public interface OrderCacheManager {
 
-    Mono<OrderListDTO> getOrderList(String cacheKey);
+    Mono<OrderListDTO> getOrderList(String cacheKey, UUID userId, Mono<OrderListDTO> loader);
 
-    Mono<OrderDetailDTO> getOrderDetail(String cacheKey);
+    Mono<OrderDetailDTO> getOrderDetail(Integer orderId, UUID userId, Mono<OrderDetailDTO> loader);
 
-    Mono<OrderItemListDTO> getOrderItems(String cacheKey);
+    Mono<OrderItemListDTO> getOrderItems(String cacheKey, UUID userId, Mono<OrderItemListDTO> loader);
 
-    Mono<OrderListDTO> cacheOrderList(String cacheKey, UUID userId, Mono<OrderListDTO> data);
+    Mono<Void> invalidate(UUID userId);
 
-    Mono<OrderDetailDTO> cacheOrderDetail(String cacheKey, UUID userId, Mono<OrderDetailDTO> data);
+    Mono<Void> invalidate(UUID userId, Collection<Integer> changedOrderIds);
 
-    Mono<OrderItemListDTO> cacheOrderItems(String cacheKey, UUID userId, Mono<OrderItemListDTO> data);
+    Mono<Void> invalidate(Map<UUID, List<Integer>> changedOrderIdsByUser);
 
-    Mono<Void> clearCaches(UUID userId);
-
-    String buildOrdersCacheKey(UUID userId, Pageable pageable, String status, LocalDateTime startDate, LocalDateTime endDate);
-
-    String buildOrderDetailCacheKey(Integer id, UUID userId);
+    String buildOrdersCacheKey(UUID userId, Pageable pageable, String status, LocalDateTime startDate, LocalDateTime endDate,
+                               String cursor, boolean includeTotal);
 
     String buildOrderItemsCacheKey(Integer orderId, UUID userId, Pageable pageable);
 }
@@ -6,16 +6,35 @@ import org.example.dto.OrderItemListDTO;
 import org.example.dto.OrderListDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.connection.ReactiveRedisConnection;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
+/**
+ * Every cache key carries the user's generation from {@code orderCacheGeneration:<userId>}; invalidating a user is a single
+ * INCR, after which the old entries are never read again and simply expire. A value loaded while a write commits is stored
+ * under the generation read before loading, so it cannot outlive the invalidation. Generation counters have no TTL: a counter
+ * that expired and restarted could make entries of an earlier generation visible again.
+ */
 @Component
 @RequiredArgsConstructor
 public class OrderCacheManagerImpl implements OrderCacheManager {
@@ -23,110 +42,181 @@ public class OrderCacheManagerImpl implements OrderCacheManager {
     private static final Logger log = LoggerFactory.getLogger(OrderCacheManagerImpl.class);
     private static final String ORDERS_CACHE_PREFIX = "orders:";
     private static final String ORDER_ITEMS_CACHE_PREFIX = "orderItems:";
-    private static final String USER_CACHE_SET_PREFIX = "userCaches:";
-    private static final Duration CACHE_TTL = Duration.ofSeconds(5);
+    private static final String GENERATION_PREFIX = "orderCacheGeneration:";
+    private static final long GENERATION_UNAVAILABLE = -1L;
+    private static final Pattern USER_ID_PATTERN =
+            Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
 
     private final ReactiveRedisTemplate<String, OrderListDTO> orderListRedisTemplate;
     private final ReactiveRedisTemplate<String, OrderDetailDTO> orderDetailRedisTemplate;
     private final ReactiveRedisTemplate<String, OrderItemListDTO> orderItemListRedisTemplate;
     private final ReactiveStringRedisTemplate stringRedisTemplate;
+    private final OrderDetailNearCache nearCache;
 
-    @Override
-    public Mono<OrderListDTO> getOrderList(String cacheKey) {
-        return orderListRedisTemplate.opsForValue().get(cacheKey)
-                .doOnNext(value -> log.debug("Cache hit for key: {}", cacheKey))
-                .onErrorResume(e -> {
-                    log.error("Failed to access cache for key: {}", cacheKey, e);
-                    return Mono.empty();
-                });
-    }
+    @Value("${order.cache.ttl:PT10M}")
+    private Duration cacheTtl;
+
+    @Value("${order.cache.invalidation.retries:3}")
+    private int invalidationRetries;
+
+    @Value("${order.cache.invalidation.backoff:PT0.1S}")
+    private Duration invalidationBackoff;
 
     @Override
-    public Mono<OrderDetailDTO> getOrderDetail(String cacheKey) {
-        return orderDetailRedisTemplate.opsForValue().get(cacheKey)
-                .doOnNext(value -> log.debug("Cache hit for key: {}", cacheKey))
-                .onErrorResume(e -> {
-                    log.error("Failed to access cache for key: {}", cacheKey, e);
-                    return Mono.empty();
-                });
+    public Mono<OrderListDTO> getOrderList(String cacheKey, UUID userId, Mono<OrderListDTO> loader) {
+        return getOrLoad(orderListRedisTemplate, cacheKey, userId, loader);
     }
 
+    /**
+     * Served from {@link OrderDetailNearCache} first; only its misses reach Redis.
+     */
     @Override
-    public Mono<OrderItemListDTO> getOrderItems(String cacheKey) {
-        return orderItemListRedisTemplate.opsForValue().get(cacheKey)
-                .doOnNext(value -> log.debug("Cache hit for key: {}", cacheKey))
-                .onErrorResume(e -> {
-                    log.error("Failed to access cache for key: {}", cacheKey, e);
-                    return Mono.empty();
-                });
+    public Mono<OrderDetailDTO> getOrderDetail(Integer orderId, UUID userId, Mono<OrderDetailDTO> loader) {
+        return nearCache.get(orderId, userId,
+                getOrLoad(orderDetailRedisTemplate, buildOrderDetailCacheKey(orderId, userId), userId, loader));
     }
 
     @Override
-    public Mono<OrderListDTO> cacheOrderList(String cacheKey, UUID userId, Mono<OrderListDTO> data) {
-        return data.flatMap(dto -> orderListRedisTemplate.opsForValue()
-                .set(cacheKey, dto, CACHE_TTL)
-                .then(stringRedisTemplate.opsForSet().add(USER_CACHE_SET_PREFIX + userId, cacheKey))
-                .then(stringRedisTemplate.expire(USER_CACHE_SET_PREFIX + userId, CACHE_TTL))
-                .thenReturn(dto)
-                .onErrorResume(e -> {
-                    log.warn("Failed to cache OrderListDTO for key: {}", cacheKey, e);
-                    return Mono.just(dto);
-                }));
+    public Mono<OrderItemListDTO> getOrderItems(String cacheKey, UUID userId, Mono<OrderItemListDTO> loader) {
+        return getOrLoad(orderItemListRedisTemplate, cacheKey, userId, loader);
     }
 
+    /**
+     * The INCR is retried with backoff; if it still fails, the user's entries are deleted instead, so a Redis hiccup
+     * does not leave stale views readable for the whole {@code order.cache.ttl}.
+     */
     @Override
-    public Mono<OrderDetailDTO> cacheOrderDetail(String cacheKey, UUID userId, Mono<OrderDetailDTO> data) {
-        return data.flatMap(dto -> orderDetailRedisTemplate.opsForValue()
-                .set(cacheKey, dto, CACHE_TTL)
-                .then(stringRedisTemplate.opsForSet().add(USER_CACHE_SET_PREFIX + userId, cacheKey))
-                .then(stringRedisTemplate.expire(USER_CACHE_SET_PREFIX + userId, CACHE_TTL))
-                .thenReturn(dto)
+    public Mono<Void> invalidate(UUID userId) {
+        return stringRedisTemplate.opsForValue().increment(GENERATION_PREFIX + userId)
+                .retryWhen(invalidationRetry())
+                .doOnNext(generation -> log.debug("Order caches of user {} moved to generation {}", userId, generation))
+                .then()
                 .onErrorResume(e -> {
-                    log.warn("Failed to cache OrderDetailDTO for key: {}", cacheKey, e);
-                    return Mono.just(dto);
-                }));
+                    log.warn("Failed to move order cache generation of user {}, deleting their entries", userId, e);
+                    return deleteEntries(Set.of(userId));
+                });
     }
 
+    /**
+     * Also evicts the changed orders from every replica's near-cache, after the generation has moved on.
+     */
     @Override
-    public Mono<OrderItemListDTO> cacheOrderItems(String cacheKey, UUID userId, Mono<OrderItemListDTO> data) {
-        return data.flatMap(dto -> orderItemListRedisTemplate.opsForValue()
-                .set(cacheKey, dto, CACHE_TTL)
-                .then(stringRedisTemplate.opsForSet().add(USER_CACHE_SET_PREFIX + userId, cacheKey))
-                .then(stringRedisTemplate.expire(USER_CACHE_SET_PREFIX + userId, CACHE_TTL))
-                .thenReturn(dto)
-                .onErrorResume(e -> {
-                    log.warn("Failed to cache OrderItemListDTO for key: {}", cacheKey, e);
-                    return Mono.just(dto);
-                }));
+    public Mono<Void> invalidate(UUID userId, Collection<Integer> changedOrderIds) {
+        return invalidate(userId)
+                .then(Mono.defer(() -> nearCache.publishChanged(Map.of(userId, List.copyOf(changedOrderIds)))));
     }
 
+    /**
+     * Moves the generation of every affected user with INCRs pipelined over one connection, so a batch spanning
+     * thousands of users costs one round trip rather than one per user, then broadcasts a single near-cache event.
+     */
     @Override
-    public Mono<Void> clearCaches(UUID userId) {
-        String setKey = USER_CACHE_SET_PREFIX + userId;
-        return stringRedisTemplate.opsForSet().members(setKey)
-                .flatMap(key -> stringRedisTemplate.delete(key)
-                        .then(stringRedisTemplate.opsForSet().remove(setKey, key))
-                        .doOnSuccess(v -> log.debug("Deleted cache key: {}", key)))
+    public Mono<Void> invalidate(Map<UUID, List<Integer>> changedOrderIdsByUser) {
+        if (changedOrderIdsByUser.isEmpty()) {
+            return Mono.empty();
+        }
+        RedisSerializationContext.SerializationPair<String> keyPair =
+                stringRedisTemplate.getSerializationContext().getKeySerializationPair();
+        Flux<ReactiveRedisConnection.KeyCommand> increments = Flux.fromIterable(changedOrderIdsByUser.keySet())
+                .map(userId -> new ReactiveRedisConnection.KeyCommand(keyPair.write(GENERATION_PREFIX + userId)));
+        return stringRedisTemplate.execute(connection -> connection.numberCommands().incr(increments))
+                .count()
+                .retryWhen(invalidationRetry())
+                .doOnNext(count -> log.debug("Order caches of {} users moved to a new generation", count))
                 .then()
                 .onErrorResume(e -> {
-                    log.error("Failed to clear caches for user: {}", userId, e);
-                    return Mono.empty();
-                });
+                    log.warn("Failed to move order cache generations of {} users, deleting their entries",
+                            changedOrderIdsByUser.size(), e);
+                    return deleteEntries(changedOrderIdsByUser.keySet());
+                })
+                .then(Mono.defer(() -> nearCache.publishChanged(changedOrderIdsByUser)));
     }
 
     @Override
-    public String buildOrdersCacheKey(UUID userId, Pageable pageable, String status, LocalDateTime startDate, LocalDateTime endDate) {
+    public String buildOrdersCacheKey(UUID userId, Pageable pageable, String status, LocalDateTime startDate, LocalDateTime endDate,
+                                      String cursor, boolean includeTotal) {
         return ORDERS_CACHE_PREFIX + userId + "-" + pageable.getPageNumber() + "-" + pageable.getPageSize() + "-" +
-                (status != null ? status : "null") + "-" + (startDate != null ? startDate : "null") + "-" + (endDate != null ? endDate : "null");
+                pageable.getSort() + "-" + (status != null ? status : "null") + "-" + (startDate != null ? startDate : "null") + "-" +
+                (endDate != null ? endDate : "null") + "-" + (cursor != null ? cursor : "null") + "-" + includeTotal;
     }
 
     @Override
-    public String buildOrderDetailCacheKey(Integer id, UUID userId) {
+    public String buildOrderItemsCacheKey(Integer orderId, UUID userId, Pageable pageable) {
+        return ORDER_ITEMS_CACHE_PREFIX + orderId + "-" + userId + "-" + pageable.getPageNumber() + "-" + pageable.getPageSize();
+    }
+
+    private String buildOrderDetailCacheKey(Integer id, UUID userId) {
         return ORDERS_CACHE_PREFIX + id + "-" + userId;
     }
 
-    @Override
-    public String buildOrderItemsCacheKey(Integer orderId, UUID userId, Pageable pageable) {
-        return ORDER_ITEMS_CACHE_PREFIX + orderId + "-" + userId + "-" + pageable.getPageNumber() + "-" + pageable.getPageSize();
+    /**
+     * Without a readable generation the cache is bypassed rather than risk serving an invalidated entry.
+     */
+    private <T> Mono<T> getOrLoad(ReactiveRedisTemplate<String, T> redisTemplate, String cacheKey, UUID userId, Mono<T> loader) {
+        return currentGeneration(userId)
+                .flatMap(generation -> {
+                    if (generation == GENERATION_UNAVAILABLE) {
+                        return loader;
+                    }
+                    String versionedKey = cacheKey + ":g" + generation;
+                    return redisTemplate.opsForValue().get(versionedKey)
+                            .doOnNext(value -> log.debug("Cache hit for key: {}", versionedKey))
+                            .onErrorResume(e -> {
+                                log.error("Failed to access cache for key: {}", versionedKey, e);
+                                return Mono.empty();
+                            })
+                            .switchIfEmpty(Mono.defer(() -> loader
+                                    .flatMap(value -> store(redisTemplate, versionedKey, value))));
+                });
+    }
+
+    private Retry invalidationRetry() {
+        return Retry.backoff(invalidationRetries, invalidationBackoff)
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    /**
+     * Last resort when the generation cannot be moved: one SCAN over the order cache keys, deleting those of the
+     * given users. Generation counters are left alone. If Redis is unreachable for this too, reads bypass the cache
+     * until it is back and stale entries can only surface for the rest of their TTL.
+     */
+    private Mono<Void> deleteEntries(Set<UUID> userIds) {
+        Set<String> users = userIds.stream().map(UUID::toString).collect(Collectors.toSet());
+        return stringRedisTemplate.scan(ScanOptions.scanOptions().match("order*").count(1000).build())
+                .filter(key -> key.startsWith(ORDERS_CACHE_PREFIX) || key.startsWith(ORDER_ITEMS_CACHE_PREFIX))
+                .filter(key -> {
+                    Matcher matcher = USER_ID_PATTERN.matcher(key);
+                    return matcher.find() && users.contains(matcher.group());
+                })
+                .buffer(500)
+                .concatMap(keys -> stringRedisTemplate.delete(keys.toArray(String[]::new)))
+                .reduce(0L, Long::sum)
+                .doOnNext(deleted -> log.info("Deleted {} order cache entries of {} users", deleted, users.size()))
+                .then()
+                .onErrorResume(e -> {
+                    log.error("Order caches of users {} could not be invalidated, stale entries may be served for up to {}",
+                            users, cacheTtl, e);
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Long> currentGeneration(UUID userId) {
+        return stringRedisTemplate.opsForValue().get(GENERATION_PREFIX + userId)
+                .map(Long::parseLong)
+                .defaultIfEmpty(0L)
+                .onErrorResume(e -> {
+                    log.error("Failed to read order cache generation for user: {}", userId, e);
+                    return Mono.just(GENERATION_UNAVAILABLE);
+                });
+    }
+
+    private <T> Mono<T> store(ReactiveRedisTemplate<String, T> redisTemplate, String versionedKey, T value) {
+        return redisTemplate.opsForValue()
+                .set(versionedKey, value, cacheTtl)
+                .thenReturn(value)
+                .onErrorResume(e -> {
+                    log.warn("Failed to cache {} for key: {}", value.getClass().getSimpleName(), versionedKey, e);
+                    return Mono.just(value);
+                });
     }
-}
\ No newline at end of file
+}
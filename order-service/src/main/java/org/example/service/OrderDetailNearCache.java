@@ -0,0 +1,169 @@
+package org.example.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.dto.OrderCacheEventDTO;
+import org.example.dto.OrderDetailDTO;
+import org.example.enums.OrderStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process, size-bounded cache of {@link OrderDetailDTO} in front of the Redis layer of {@link OrderCacheManager}.
+ * Orders that reached a final status never change again and are kept for {@code order.cache.near.final-ttl}; others
+ * only for {@code order.cache.near.ttl}. Changes are broadcast on a Redis channel so every replica evicts its copy;
+ * whenever the subscription drops, the whole cache is cleared, since events may have been missed.
+ */
+@Component
+public class OrderDetailNearCache {
+    private static final Logger log = LoggerFactory.getLogger(OrderDetailNearCache.class);
+    private static final String CACHE_NAME = "orderDetailNearCache";
+    private static final String CHANNEL = "order-cache-events";
+
+    private final AsyncCache<String, OrderDetailDTO> cache;
+    private final ReactiveRedisTemplate<String, OrderCacheEventDTO> eventRedisTemplate;
+    private final ReactiveRedisMessageListenerContainer listenerContainer;
+    private final AtomicLong evictions = new AtomicLong();
+    private Disposable subscription;
+
+    public OrderDetailNearCache(ReactiveRedisTemplate<String, OrderCacheEventDTO> orderCacheEventRedisTemplate,
+                                ReactiveRedisMessageListenerContainer orderCacheEventListenerContainer,
+                                MeterRegistry meterRegistry,
+                                @Value("${order.cache.near.max-size:10000}") long maxSize,
+                                @Value("${order.cache.near.ttl:PT1M}") Duration ttl,
+                                @Value("${order.cache.near.final-ttl:PT1H}") Duration finalTtl) {
+        this.eventRedisTemplate = orderCacheEventRedisTemplate;
+        this.listenerContainer = orderCacheEventListenerContainer;
+        this.cache = CaffeineCacheMetrics.monitor(meterRegistry,
+                Caffeine.newBuilder()
+                        .maximumSize(maxSize)
+                        .expireAfter(new StatusExpiry(ttl, finalTtl))
+                        .recordStats()
+                        .buildAsync(),
+                CACHE_NAME);
+        log.info("Order detail near-cache initialized: maxSize={}, ttl={}, finalTtl={}", maxSize, ttl, finalTtl);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        RedisSerializationContext<String, OrderCacheEventDTO> serializationContext = eventRedisTemplate.getSerializationContext();
+        subscription = Flux.defer(() -> listenerContainer.receive(List.of(ChannelTopic.of(CHANNEL)),
+                        serializationContext.getKeySerializationPair(),
+                        serializationContext.getValueSerializationPair()))
+                .map(ReactiveSubscription.Message::getMessage)
+                .doOnNext(this::evict)
+                .doOnError(e -> {
+                    log.warn("Lost order cache event subscription, clearing near-cache", e);
+                    evictions.incrementAndGet();
+                    cache.synchronous().invalidateAll();
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * Concurrent misses for the same order share one load; a load that fails or yields nothing is not cached, and
+     * neither is one that overlapped an eviction, since it may have read the order before the change. That check is
+     * attached once {@code cache.get} has returned, when the future is in the cache even if it already completed.
+     */
+    public Mono<OrderDetailDTO> get(Integer orderId, UUID userId, Mono<OrderDetailDTO> loader) {
+        String key = buildKey(orderId, userId);
+        return Mono.defer(() -> {
+            long evictionsAtStart = evictions.get();
+            CompletableFuture<OrderDetailDTO> future = cache.get(key, (k, executor) -> loader.toFuture());
+            future.thenRun(() -> {
+                if (evictions.get() != evictionsAtStart && cache.asMap().remove(key, future)) {
+                    log.debug("Dropped near-cache load of {} that overlapped an eviction", key);
+                }
+            });
+            return Mono.fromFuture(future, true);
+        });
+    }
+
+    /**
+     * Evicts the orders here straight away and on every other replica through Redis, as one event however many users
+     * the change spans.
+     */
+    public Mono<Void> publishChanged(Map<UUID, List<Integer>> orderIdsByUser) {
+        if (orderIdsByUser.isEmpty()) {
+            return Mono.empty();
+        }
+        OrderCacheEventDTO event = new OrderCacheEventDTO(orderIdsByUser);
+        evict(event);
+        return eventRedisTemplate.convertAndSend(CHANNEL, event)
+                .doOnNext(receivers -> log.debug("Published change of orders of {} users to {} receivers",
+                        orderIdsByUser.size(), receivers))
+                .then()
+                .onErrorResume(e -> {
+                    log.warn("Failed to publish change of orders of users: {}", orderIdsByUser.keySet(), e);
+                    return Mono.empty();
+                });
+    }
+
+    private void evict(OrderCacheEventDTO event) {
+        evictions.incrementAndGet();
+        cache.synchronous().invalidateAll(event.orderIdsByUser().entrySet().stream()
+                .flatMap(entry -> entry.getValue().stream()
+                        .map(orderId -> buildKey(orderId, entry.getKey())))
+                .toList());
+    }
+
+    private static String buildKey(Integer orderId, UUID userId) {
+        return orderId + "-" + userId;
+    }
+
+    private static final class StatusExpiry implements Expiry<String, OrderDetailDTO> {
+        private final long ttlNanos;
+        private final long finalTtlNanos;
+
+        private StatusExpiry(Duration ttl, Duration finalTtl) {
+            this.ttlNanos = ttl.toNanos();
+            this.finalTtlNanos = finalTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(String key, OrderDetailDTO value, long currentTime) {
+            return value.status() == OrderStatus.PENDING ? ttlNanos : finalTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, OrderDetailDTO value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, OrderDetailDTO value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
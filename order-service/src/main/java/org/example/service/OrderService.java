@@ -1,20 +1,31 @@
 package org.example.service;
 
 
+import org.example.dto.BulkOrderStatusResultDTO;
 import org.example.dto.CreateOrderRequestDTO;
 import org.example.dto.OrderDetailDTO;
 import org.example.dto.OrderItemListDTO;
 import org.example.dto.OrderListDTO;
+import org.example.dto.OrderStatusDTO;
+import org.example.enums.OrderStatus;
 import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 public interface OrderService {
-    Mono<OrderListDTO> getOrders(UUID userId, Pageable pageable, String status, LocalDateTime startDate, LocalDateTime endDate);
+    Mono<OrderListDTO> getOrders(UUID userId, Pageable pageable, String status, LocalDateTime startDate, LocalDateTime endDate,
+                                 String cursor, boolean includeTotal);
     Mono<OrderDetailDTO> getOrderDetail(Integer id, UUID userId);
     Mono<OrderItemListDTO> getOrderItems(Integer orderId, UUID userId, Pageable pageable);
-    Mono<OrderDetailDTO> createOrder(UUID userId, CreateOrderRequestDTO request);
+    Mono<OrderDetailDTO> createOrder(UUID userId, CreateOrderRequestDTO request, String idempotencyKey);
+    Mono<OrderDetailDTO> getOrderByIdempotencyKey(String idempotencyKey);
     Mono<Void> deleteOrder(Integer id, UUID userId);
+    Flux<OrderStatusDTO> getOrderStatuses(Collection<Integer> ids);
+    Mono<OrderDetailDTO> updateOrderStatus(Integer id, OrderStatus status);
+    Mono<BulkOrderStatusResultDTO> updateOrderStatuses(List<Integer> ids, OrderStatus status);
 }
\ No newline at end of file
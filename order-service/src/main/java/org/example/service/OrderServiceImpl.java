@@ -4,6 +4,9 @@ import lombok.RequiredArgsConstructor;
 import org.example.client.ProductClient;
 import org.example.dto.*;
 import org.example.enums.OrderStatus;
+import org.example.exception.InvalidCursorException;
+import org.example.exception.InvalidSortException;
+import org.example.exception.InvalidStatusTransitionException;
 import org.example.exception.OrderNotFoundException;
 import org.example.exception.ProductNotFoundException;
 import org.example.mapper.OrderMapper;
@@ -13,74 +16,94 @@ import org.example.repository.OrderItemRepository;
 import org.example.repository.OrderRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class OrderServiceImpl implements OrderService {
     private static final Logger log = LoggerFactory.getLogger(OrderServiceImpl.class);
+    private static final Set<String> SORTABLE_PROPERTIES = Set.of("orderDate", "totalAmount", "status", "id");
+    private static final String CURSOR_SEPARATOR = ",";
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
     private final OrderMapper orderMapper;
     private final ProductClient productClient;
     private final OrderCacheManager cacheManager;
+    private final R2dbcEntityTemplate template;
+    private final TransactionalOperator transactionalOperator;
 
+    /**
+     * Sorts only by whitelisted properties, with {@code id} as tie-breaker. Sorted by {@code orderDate} the list pages
+     * by a keyset cursor on {@code (order_date, id)}, so every page costs the same however deep it is; other sorts
+     * fall back to OFFSET. The total is counted only when {@code includeTotal} is set.
+     */
     @Override
-    public Mono<OrderListDTO> getOrders(UUID userId, Pageable pageable, String status, LocalDateTime startDate, LocalDateTime endDate) {
+    public Mono<OrderListDTO> getOrders(UUID userId, Pageable pageable, String status, LocalDateTime startDate, LocalDateTime endDate,
+                                        String cursor, boolean includeTotal) {
         String effectiveStatus = (status == null || status.trim().isEmpty()) ? null : status;
-        String cacheKey = cacheManager.buildOrdersCacheKey(userId, pageable, effectiveStatus, startDate, endDate);
+        String cacheKey = cacheManager.buildOrdersCacheKey(userId, pageable, effectiveStatus, startDate, endDate, cursor, includeTotal);
 
-        return cacheManager.getOrderList(cacheKey)
-                .switchIfEmpty(Mono.defer(() -> {
-                    String orderBy = createOrderBy(pageable.getSort());
-                    long offset = pageable.getOffset();
-                    int limit = pageable.getPageSize();
+        return cacheManager.getOrderList(cacheKey, userId, Mono.defer(() -> {
+            Sort sort = createSort(pageable.getSort());
+            boolean keyset = isKeysetSort(sort);
+            if (cursor != null && !keyset) {
+                throw new InvalidSortException("Cursor paging requires sorting by orderDate");
+            }
+            Criteria filter = buildOrderFilter(userId, effectiveStatus, startDate, endDate);
+            Query query = Query.query(cursor != null ? filter.and(afterCursor(decodeCursor(cursor), sort)) : filter)
+                    .sort(sort)
+                    .limit(pageable.getPageSize() + 1);
+            if (cursor == null) {
+                query = query.offset(pageable.getOffset());
+            }
+            Mono<List<Order>> orders = template.select(Order.class)
+                    .matching(query)
+                    .all()
+                    .collectList();
+            Mono<Optional<Long>> totalElements = includeTotal
+                    ? template.count(Query.query(filter), Order.class).map(Optional::of)
+                    : Mono.just(Optional.empty());
 
-                    Flux<Order> orders = orderRepository.findOrders(userId, effectiveStatus, startDate, endDate, orderBy, offset, limit);
-                    Mono<Long> totalElements = orderRepository.countOrders(userId, effectiveStatus, startDate, endDate);
-
-                    return orders
-                            .map(orderMapper::toListDto)
-                            .collectList()
-                            .zipWith(totalElements)
-                            .map(tuple -> createPage(tuple.getT1(), tuple.getT2(), pageable, OrderListDTO::new))
-                            .flatMap(dto -> cacheManager.cacheOrderList(cacheKey, userId, Mono.just(dto)));
-                }));
+            return orders
+                    .zipWith(totalElements)
+                    .map(tuple -> createOrderPage(tuple.getT1(), tuple.getT2().orElse(null), pageable, keyset));
+        }));
     }
 
     @Override
     public Mono<OrderDetailDTO> getOrderDetail(Integer id, UUID userId) {
-        String cacheKey = cacheManager.buildOrderDetailCacheKey(id, userId);
-
-        return cacheManager.getOrderDetail(cacheKey)
-                .switchIfEmpty(Mono.defer(() -> orderRepository.findByIdAndUserId(id, userId)
+        return cacheManager.getOrderDetail(id, userId, Mono.defer(() -> orderRepository.findByIdAndUserId(id, userId)
                         .switchIfEmpty(Mono.error(new OrderNotFoundException(id)))
-                        .flatMap(order -> loadOrderItems(order)
-                                .map(items -> orderMapper.toDto(order, items))
-                                .flatMap(dto -> enrichItems(dto.items(), dto::id)
-                                        .map(enrichedItems -> new OrderDetailDTO(dto.id(), dto.userId(), dto.orderDate(),
-                                                dto.status(), dto.totalAmount(), enrichedItems))))
-                        .flatMap(dto -> cacheManager.cacheOrderDetail(cacheKey, userId, Mono.just(dto)))));
+                        .flatMap(this::toDetail)));
     }
 
     @Override
     public Mono<OrderItemListDTO> getOrderItems(Integer orderId, UUID userId, Pageable pageable) {
         String cacheKey = cacheManager.buildOrderItemsCacheKey(orderId, userId, pageable);
 
-        return cacheManager.getOrderItems(cacheKey)
-                .switchIfEmpty(Mono.defer(() -> orderRepository.findByIdAndUserId(orderId, userId)
+        return cacheManager.getOrderItems(cacheKey, userId, Mono.defer(() -> orderRepository.findByIdAndUserId(orderId, userId)
                         .switchIfEmpty(Mono.error(new OrderNotFoundException(orderId)))
                         .flatMap(order -> orderItemRepository.findByOrderId(orderId, pageable.getOffset(), pageable.getPageSize())
                                 .map(orderMapper::toItemDto)
@@ -89,13 +112,34 @@ public class OrderServiceImpl implements OrderService {
                                 .map(tuple -> createPage(tuple.getT1(), tuple.getT2(), pageable, OrderItemListDTO::new))
                                 .flatMap(dto -> enrichItems(dto.items(), () -> null)
                                         .map(enrichedItems -> new OrderItemListDTO(enrichedItems, dto.page(), dto.size(),
-                                                dto.totalPages(), dto.totalElements())))
-                                .flatMap(dto -> cacheManager.cacheOrderItems(cacheKey, userId, Mono.just(dto))))));
+                                                dto.totalPages(), dto.totalElements()))))));
+    }
+
+    /**
+     * Cached order views of the user are invalidated only after the order is committed. An order created with an
+     * {@code idempotencyKey} is created once: repeating the request returns the existing order, including when two
+     * attempts race and the unique key rejects the second insert.
+     */
+    @Override
+    public Mono<OrderDetailDTO> createOrder(UUID userId, CreateOrderRequestDTO request, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return insertOrder(userId, request, null);
+        }
+        return orderRepository.findByIdempotencyKey(idempotencyKey)
+                .doOnNext(order -> log.info("Order {} already exists for idempotency key {}", order.id(), idempotencyKey))
+                .flatMap(this::toDetail)
+                .switchIfEmpty(Mono.defer(() -> insertOrder(userId, request, idempotencyKey)))
+                .onErrorResume(DuplicateKeyException.class, e -> getOrderByIdempotencyKey(idempotencyKey));
     }
 
     @Override
-    @Transactional
-    public Mono<OrderDetailDTO> createOrder(UUID userId, CreateOrderRequestDTO request) {
+    public Mono<OrderDetailDTO> getOrderByIdempotencyKey(String idempotencyKey) {
+        return orderRepository.findByIdempotencyKey(idempotencyKey)
+                .switchIfEmpty(Mono.error(new OrderNotFoundException(idempotencyKey)))
+                .flatMap(this::toDetail);
+    }
+
+    private Mono<OrderDetailDTO> insertOrder(UUID userId, CreateOrderRequestDTO request, String idempotencyKey) {
         long uniqueProductIds = request.items().stream()
                 .map(CreateOrderRequestDTO.OrderItemRequestDTO::productId)
                 .distinct()
@@ -115,19 +159,87 @@ public class OrderServiceImpl implements OrderService {
                             .collect(Collectors.toMap(ProductDetailDTO::id, p -> p));
                     List<OrderItem> orderItems = buildOrderItems(request, productMap);
                     BigDecimal totalAmount = calculateTotalAmount(orderItems);
-                    Order order = new Order(null, userId, LocalDateTime.now(), OrderStatus.PENDING, totalAmount);
-                    return saveOrderWithItems(order, orderItems);
+                    Order order = new Order(null, userId, LocalDateTime.now(), OrderStatus.PENDING, totalAmount,
+                            idempotencyKey);
+                    return transactionalOperator.transactional(saveOrderWithItems(order, orderItems));
                 })
-                .doOnSuccess(dto -> cacheManager.clearCaches(userId).subscribe());
+                .flatMap(dto -> cacheManager.invalidate(userId).thenReturn(dto));
     }
 
     @Override
-    @Transactional
     public Mono<Void> deleteOrder(Integer id, UUID userId) {
-        return orderRepository.findByIdAndUserId(id, userId)
-                .switchIfEmpty(Mono.error(new OrderNotFoundException(id)))
-                .flatMap(order -> orderRepository.deleteByIdAndUserId(id, userId))
-                .doOnSuccess(v -> cacheManager.clearCaches(userId).subscribe());
+        return transactionalOperator.transactional(orderRepository.findByIdAndUserId(id, userId)
+                        .switchIfEmpty(Mono.error(new OrderNotFoundException(id)))
+                        .flatMap(order -> orderRepository.deleteByIdAndUserId(id, userId)))
+                .then(cacheManager.invalidate(userId, List.of(id)));
+    }
+
+    @Override
+    public Flux<OrderStatusDTO> getOrderStatuses(Collection<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return orderRepository.findAllByIds(ids)
+                .map(order -> new OrderStatusDTO(order.id(), order.status()));
+    }
+
+    /**
+     * The transition is checked by the UPDATE itself, so two concurrent requests cannot both move the same order.
+     * Asking for the status the order already has is a no-op.
+     */
+    @Override
+    public Mono<OrderDetailDTO> updateOrderStatus(Integer id, OrderStatus status) {
+        List<String> fromStatuses = OrderStatus.sourcesOf(status);
+        if (fromStatuses.isEmpty()) {
+            return Mono.error(new InvalidStatusTransitionException(status));
+        }
+        return orderRepository.updateStatus(id, status.name(), fromStatuses)
+                .flatMap(order -> cacheManager.invalidate(order.userId(), List.of(id)).thenReturn(order))
+                .switchIfEmpty(Mono.defer(() -> orderRepository.findById(id)
+                        .switchIfEmpty(Mono.error(new OrderNotFoundException(id)))
+                        .flatMap(order -> order.status() == status
+                                ? Mono.just(order)
+                                : Mono.error(new InvalidStatusTransitionException(id, order.status(), status)))))
+                .doOnNext(order -> log.debug("Order {} of user {} is {}", id, order.userId(), status))
+                .flatMap(order -> getOrderDetail(id, order.userId()));
+    }
+
+    /**
+     * Moves every listed order that is allowed to reach {@code status} in one set-based UPDATE; the rest are reported
+     * as skipped. The caches of all affected users are invalidated together once the statement has committed.
+     */
+    @Override
+    public Mono<BulkOrderStatusResultDTO> updateOrderStatuses(List<Integer> ids, OrderStatus status) {
+        List<String> fromStatuses = OrderStatus.sourcesOf(status);
+        if (fromStatuses.isEmpty()) {
+            return Mono.error(new InvalidStatusTransitionException(status));
+        }
+        Integer[] distinctIds = ids.stream().distinct().toArray(Integer[]::new);
+        return orderRepository.updateStatuses(distinctIds, status.name(), fromStatuses)
+                .collectList()
+                .flatMap(updated -> {
+                    Map<UUID, List<Integer>> updatedIdsByUser = updated.stream()
+                            .collect(Collectors.groupingBy(Order::userId,
+                                    Collectors.mapping(Order::id, Collectors.toList())));
+                    Set<Integer> updatedIds = updated.stream()
+                            .map(Order::id)
+                            .collect(Collectors.toSet());
+                    List<Integer> skippedIds = Stream.of(distinctIds)
+                            .filter(id -> !updatedIds.contains(id))
+                            .toList();
+                    log.info("Moved {} of {} orders to {} for {} users", updated.size(), distinctIds.length, status,
+                            updatedIdsByUser.size());
+                    return cacheManager.invalidate(updatedIdsByUser)
+                            .thenReturn(new BulkOrderStatusResultDTO(status, distinctIds.length, updated.size(), skippedIds));
+                });
+    }
+
+    private Mono<OrderDetailDTO> toDetail(Order order) {
+        return loadOrderItems(order)
+                .map(items -> orderMapper.toDto(order, items))
+                .flatMap(dto -> enrichItems(dto.items(), dto::id)
+                        .map(enrichedItems -> new OrderDetailDTO(dto.id(), dto.userId(), dto.orderDate(),
+                                dto.status(), dto.totalAmount(), enrichedItems)));
     }
 
     private Mono<List<OrderItem>> loadOrderItems(Order order) {
@@ -157,18 +269,81 @@ public class OrderServiceImpl implements OrderService {
                         .toList());
     }
 
-    private String createOrderBy(Sort sort) {
-        String orderBy = sort.stream()
-                .map(order -> {
-                    String property = switch (order.getProperty()) {
-                        case "orderDate" -> "order_date";
-                        case "totalAmount" -> "total_amount";
-                        default -> order.getProperty();
-                    };
-                    return property + " " + (order.getDirection().isAscending() ? "ASC" : "DESC");
-                })
-                .collect(Collectors.joining(", "));
-        return orderBy.isEmpty() ? "order_date DESC" : orderBy;
+    private Sort createSort(Sort requested) {
+        requested.forEach(order -> {
+            if (!SORTABLE_PROPERTIES.contains(order.getProperty())) {
+                throw new InvalidSortException("Sorting by " + order.getProperty() + " is not supported");
+            }
+        });
+        Sort sort = requested.isSorted() ? requested : Sort.by(Sort.Order.desc("orderDate"));
+        if (sort.getOrderFor("id") != null) {
+            return sort;
+        }
+        return sort.and(Sort.by(sort.iterator().next().getDirection(), "id"));
+    }
+
+    private boolean isKeysetSort(Sort sort) {
+        List<Sort.Order> orders = sort.toList();
+        return orders.size() == 2
+                && orders.get(0).getProperty().equals("orderDate")
+                && orders.get(1).getProperty().equals("id")
+                && orders.get(0).getDirection() == orders.get(1).getDirection();
+    }
+
+    private Criteria buildOrderFilter(UUID userId, String status, LocalDateTime startDate, LocalDateTime endDate) {
+        return Stream.of(
+                        Optional.of(Criteria.where("user_id").is(userId)),
+                        Optional.ofNullable(status)
+                                .map(value -> Criteria.where("status").is(value)),
+                        Optional.ofNullable(startDate)
+                                .map(date -> Criteria.where("order_date").greaterThanOrEquals(date)),
+                        Optional.ofNullable(endDate)
+                                .map(date -> Criteria.where("order_date").lessThanOrEquals(date)))
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .reduce(Criteria.empty(), Criteria::and, Criteria::and);
+    }
+
+    /**
+     * Rows strictly after the cursor in {@code (order_date, id)} order; the redundant bound on {@code order_date}
+     * gives the index scan a start key.
+     */
+    private Criteria afterCursor(OrderCursor last, Sort sort) {
+        if (sort.iterator().next().isAscending()) {
+            return Criteria.where("order_date").greaterThanOrEquals(last.orderDate())
+                    .and(Criteria.where("order_date").greaterThan(last.orderDate())
+                            .or(Criteria.where("order_date").is(last.orderDate())
+                                    .and("id").greaterThan(last.id())));
+        }
+        return Criteria.where("order_date").lessThanOrEquals(last.orderDate())
+                .and(Criteria.where("order_date").lessThan(last.orderDate())
+                        .or(Criteria.where("order_date").is(last.orderDate())
+                                .and("id").lessThan(last.id())));
+    }
+
+    private OrderListDTO createOrderPage(List<Order> orders, Long totalElements, Pageable pageable, boolean keyset) {
+        int pageSize = pageable.getPageSize();
+        boolean hasNext = orders.size() > pageSize;
+        List<Order> page = hasNext ? orders.subList(0, pageSize) : orders;
+        String nextCursor = hasNext && keyset ? encodeCursor(page.get(page.size() - 1)) : null;
+        Integer totalPages = totalElements != null ? (int) Math.ceil((double) totalElements / pageSize) : null;
+        return new OrderListDTO(page.stream().map(orderMapper::toListDto).toList(), pageable.getPageNumber(), pageSize,
+                totalPages, totalElements, nextCursor);
+    }
+
+    private String encodeCursor(Order last) {
+        String raw = last.orderDate() + CURSOR_SEPARATOR + last.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private OrderCursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(CURSOR_SEPARATOR, 2);
+            return new OrderCursor(LocalDateTime.parse(parts[0]), Integer.valueOf(parts[1]));
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException(cursor);
+        }
     }
 
     private <T, R> R createPage(List<T> content, long totalElements, Pageable pageable,
@@ -213,6 +388,8 @@ public class OrderServiceImpl implements OrderService {
                 });
     }
 
+    private record OrderCursor(LocalDateTime orderDate, Integer id) {}
+
     @FunctionalInterface
     interface Function5<T1, T2, T3, T4, T5, R> {
         R apply(T1 t1, T2 t2, T3 t3, T4 t4, T5 t5);
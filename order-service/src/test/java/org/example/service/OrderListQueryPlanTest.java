@@ -0,0 +1,220 @@
+package org.example.service;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Statement;
+import org.example.config.DatabaseMigrationProperties;
+import org.example.dto.OrderListDTO;
+import org.example.mapper.OrderMapperImpl;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Guards the order list indexes against the SQL {@link OrderServiceImpl#getOrders} really sends: every statement it
+ * issues is recorded with its bindings and EXPLAINed, and neither the page query nor the count query may scan
+ * {@code orders} sequentially; the page query may not sort either.
+ */
+@Testcontainers
+class OrderListQueryPlanTest {
+
+    private static final UUID USER_ID = UUID.fromString("00000000-0000-0000-0000-000000000042");
+    private static final List<RecordedStatement> statements = new CopyOnWriteArrayList<>();
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15");
+
+    private static ConnectionFactory connectionFactory;
+    private static OrderService orderService;
+
+    @BeforeAll
+    static void migrateAndSeed() {
+        DatabaseMigrationProperties.MigrationProperties properties = new DatabaseMigrationProperties.MigrationProperties();
+        properties.setUrl(postgres.getJdbcUrl());
+        properties.setUsername(postgres.getUsername());
+        properties.setPassword(postgres.getPassword());
+        properties.setChangelog("db/changelog/orders/changelog-orders.xml");
+        new GenericMigrationService("orders", properties).runMigrations();
+
+        connectionFactory = ConnectionFactories.get(ConnectionFactoryOptions.parse(postgres.getJdbcUrl().replace("jdbc:", "r2dbc:"))
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, postgres.getUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, postgres.getPassword())
+                .build());
+        DatabaseClient databaseClient = DatabaseClient.create(connectionFactory);
+        databaseClient.sql("INSERT INTO orders (user_id, order_date, status, total_amount) " +
+                        "SELECT ('00000000-0000-0000-0000-' || lpad((n % 500)::text, 12, '0'))::uuid, " +
+                        "TIMESTAMP '2025-01-01 00:00:00' + n * INTERVAL '1 minute', " +
+                        "(ARRAY['PENDING', 'COMPLETED', 'CANCELLED'])[n % 3 + 1], n % 1000 " +
+                        "FROM generate_series(1, 100000) AS n")
+                .then()
+                .then(databaseClient.sql("ANALYZE orders").then())
+                .block();
+
+        OrderCacheManager cacheManager = mock(OrderCacheManager.class);
+        when(cacheManager.getOrderList(any(), any(), any())).thenAnswer(invocation -> invocation.getArgument(2));
+        orderService = new OrderServiceImpl(null, null, new OrderMapperImpl(), null, cacheManager,
+                new R2dbcEntityTemplate(recording(connectionFactory)), null);
+    }
+
+    @BeforeEach
+    void clearStatements() {
+        statements.clear();
+    }
+
+    @Test
+    void pageAndCountByUserUseAnIndex() {
+        getOrders(null, null, true);
+
+        assertServedByIndex(pageQuery());
+        assertServedByIndex(countQuery());
+    }
+
+    @Test
+    void pageAndCountByUserAndStatusUseAnIndex() {
+        getOrders("COMPLETED", null, true);
+
+        assertServedByIndex(pageQuery());
+        assertServedByIndex(countQuery());
+    }
+
+    @Test
+    void keysetPagesUseAnIndex() {
+        String nextCursor = getOrders(null, null, false).nextCursor();
+        assertNotNull(nextCursor);
+        statements.clear();
+        getOrders(null, nextCursor, false);
+        assertServedByIndex(pageQuery());
+
+        String nextFilteredCursor = getOrders("PENDING", null, false).nextCursor();
+        assertNotNull(nextFilteredCursor);
+        statements.clear();
+        getOrders("PENDING", nextFilteredCursor, false);
+        assertServedByIndex(pageQuery());
+    }
+
+    private OrderListDTO getOrders(String status, String cursor, boolean includeTotal) {
+        return orderService.getOrders(USER_ID, PageRequest.of(0, 20), status, null, null, cursor, includeTotal).block();
+    }
+
+    private RecordedStatement pageQuery() {
+        List<RecordedStatement> pages = statements.stream().filter(statement -> !statement.isCount()).toList();
+        assertEquals(1, pages.size(), () -> "Expected one page query, got: " + statements);
+        return pages.get(0);
+    }
+
+    private RecordedStatement countQuery() {
+        List<RecordedStatement> counts = statements.stream().filter(RecordedStatement::isCount).toList();
+        assertEquals(1, counts.size(), () -> "Expected one count query, got: " + statements);
+        return counts.get(0);
+    }
+
+    private void assertServedByIndex(RecordedStatement statement) {
+        String plan = explain(statement);
+        assertFalse(plan.contains("Seq Scan on orders"),
+                () -> "Expected an index scan on orders for:\n" + statement.sql() + "\ngot:\n" + plan);
+        if (!statement.isCount()) {
+            assertFalse(plan.contains("Sort Key"),
+                    () -> "Expected rows in index order for:\n" + statement.sql() + "\ngot:\n" + plan);
+        }
+    }
+
+    private String explain(RecordedStatement statement) {
+        return Flux.usingWhen(connectionFactory.create(),
+                        connection -> statement.bindTo(connection.createStatement("EXPLAIN " + statement.sql())).execute(),
+                        Connection::close)
+                .flatMap(result -> result.map((row, metadata) -> row.get(0, String.class)))
+                .collectList()
+                .map(lines -> String.join("\n", lines))
+                .block();
+    }
+
+    private record RecordedStatement(String sql, List<Consumer<Statement>> bindings) {
+        boolean isCount() {
+            return sql.toUpperCase().startsWith("SELECT COUNT");
+        }
+
+        Statement bindTo(Statement statement) {
+            bindings.forEach(binding -> binding.accept(statement));
+            return statement;
+        }
+
+        @Override
+        public String toString() {
+            return sql;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConnectionFactory recording(ConnectionFactory connectionFactory) {
+        return intercept(ConnectionFactory.class, connectionFactory, (proxy, method, args, result) ->
+                method.getName().equals("create")
+                        ? Mono.from((Publisher<Connection>) result).map(OrderListQueryPlanTest::recording)
+                        : result);
+    }
+
+    private static Connection recording(Connection connection) {
+        return intercept(Connection.class, connection, (proxy, method, args, result) ->
+                method.getName().equals("createStatement")
+                        ? recording((String) args[0], (Statement) result)
+                        : result);
+    }
+
+    private static Statement recording(String sql, Statement statement) {
+        RecordedStatement recorded = new RecordedStatement(sql, new CopyOnWriteArrayList<>());
+        statements.add(recorded);
+        return intercept(Statement.class, statement, (proxy, method, args, result) -> {
+            if (method.getName().startsWith("bind")) {
+                recorded.bindings().add(target -> invoke(method, target, args));
+            }
+            return result == statement ? proxy : result;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T intercept(Class<T> type, T target, Interceptor interceptor) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> interceptor.after(proxy, method, args, invoke(method, target, args)));
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Interceptor {
+        Object after(Object proxy, Method method, Object[] args, Object result);
+    }
+}
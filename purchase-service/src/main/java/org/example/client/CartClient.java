@@ -1,11 +1,11 @@
 package org.example.client;
 
-import org.example.dto.CartDTO;
+import org.example.dto.CartSnapshotDTO;
 import reactor.core.publisher.Mono;
 
 import java.util.UUID;
 
 public interface CartClient {
-    Mono<CartDTO> getCart(UUID userId);
-    Mono<Void> clearCart(UUID userId);
+    Mono<CartSnapshotDTO> getCartSnapshot(UUID userId);
+    Mono<Void> clearCart(UUID userId, Long version);
 }
\ No newline at end of file
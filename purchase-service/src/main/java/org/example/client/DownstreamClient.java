@@ -0,0 +1,101 @@
+package org.example.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.exception.DownstreamBusyException;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * A called service's {@link WebClient} behind a bulkhead: at most {@code maxConcurrency} calls in flight, further
+ * calls fail fast with {@link DownstreamBusyException}. Each call is bounded by the service's timeout and timed
+ * as {@code purchase.client.requests}, tagged by client, operation and outcome.
+ */
+public class DownstreamClient {
+    private final String name;
+    private final WebClient webClient;
+    private final ConnectionProvider connectionProvider;
+    private final Duration timeout;
+    private final int maxConcurrency;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+
+    public DownstreamClient(String name, WebClient webClient, ConnectionProvider connectionProvider, Duration timeout,
+                            int maxConcurrency, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.webClient = webClient;
+        this.connectionProvider = connectionProvider;
+        this.timeout = timeout;
+        this.maxConcurrency = maxConcurrency;
+        this.meterRegistry = meterRegistry;
+        this.rejected = Counter.builder("purchase.client.rejected")
+                .description("Calls refused because too many were already in flight")
+                .tag("client", name)
+                .register(meterRegistry);
+        Gauge.builder("purchase.client.in-flight", inFlight, AtomicInteger::get)
+                .description("Calls currently in flight")
+                .tag("client", name)
+                .register(meterRegistry);
+    }
+
+    public <T> Mono<T> call(String operation, Function<WebClient, Mono<T>> request) {
+        return Mono.defer(() -> {
+            if (!tryAcquire()) {
+                return Mono.error(new DownstreamBusyException(name));
+            }
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return request.apply(webClient)
+                    .timeout(timeout)
+                    .doFinally(signal -> release(operation, sample, signal));
+        });
+    }
+
+    public <T> Flux<T> callMany(String operation, Function<WebClient, Flux<T>> request) {
+        return Flux.defer(() -> {
+            if (!tryAcquire()) {
+                return Flux.error(new DownstreamBusyException(name));
+            }
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return request.apply(webClient)
+                    .timeout(timeout)
+                    .doFinally(signal -> release(operation, sample, signal));
+        });
+    }
+
+    public void shutdown() {
+        connectionProvider.dispose();
+    }
+
+    private boolean tryAcquire() {
+        if (inFlight.incrementAndGet() > maxConcurrency) {
+            inFlight.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private void release(String operation, Timer.Sample sample, SignalType signal) {
+        inFlight.decrementAndGet();
+        sample.stop(Timer.builder("purchase.client.requests")
+                .description("Duration of a call to a downstream service")
+                .tag("client", name)
+                .tag("operation", operation)
+                .tag("outcome", switch (signal) {
+                    case ON_COMPLETE -> "success";
+                    case ON_ERROR -> "error";
+                    default -> "cancelled";
+                })
+                .register(meterRegistry));
+    }
+}
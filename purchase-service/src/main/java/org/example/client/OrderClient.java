@@ -2,8 +2,14 @@ package org.example.client;
 
 import org.example.dto.CreateOrderRequestDTO;
 import org.example.dto.OrderDetailDTO;
+import org.example.dto.OrderStatusDTO;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+
 public interface OrderClient {
-    Mono<OrderDetailDTO> createOrder(CreateOrderRequestDTO request);
+    Mono<OrderDetailDTO> createOrder(CreateOrderRequestDTO request, String idempotencyKey);
+    Mono<OrderDetailDTO> findByIdempotencyKey(String idempotencyKey);
+    Flux<OrderStatusDTO> getOrderStatuses(Collection<Integer> orderIds);
 }
\ No newline at end of file
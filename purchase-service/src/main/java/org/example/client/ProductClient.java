@@ -1,8 +1,12 @@
 package org.example.client;
 
 import org.example.dto.ProductDetailDTO;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+
 public interface ProductClient {
     Mono<ProductDetailDTO> getProductById(Integer productId);
+    Flux<ProductDetailDTO> getProductsByIds(Collection<Integer> productIds);
 }
@@ -8,6 +8,7 @@ import java.util.UUID;
 
 public interface WalletClient {
     Mono<WalletDTO> getWallet(UUID userId);
-    Mono<Void> debitBalance(UUID userId, BigDecimal amount);
-    Mono<Void> creditBalance(UUID userId, BigDecimal amount);
+    Mono<BigDecimal> debitBalance(UUID userId, BigDecimal amount, String reference);
+    Mono<Boolean> isDebitApplied(UUID userId, String reference);
+    Mono<Void> creditBalance(UUID userId, BigDecimal amount, String reference);
 }
\ No newline at end of file
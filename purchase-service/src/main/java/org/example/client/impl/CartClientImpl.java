@@ -2,43 +2,42 @@ package org.example.client.impl;
 
 import lombok.RequiredArgsConstructor;
 import org.example.client.CartClient;
+import org.example.client.DownstreamClient;
 import org.example.exception.CartEmptyException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.oauth2.client.web.reactive.function.client.ServerOAuth2AuthorizedClientExchangeFilterFunction;
 import org.springframework.stereotype.Component;
-import org.example.dto.CartDTO;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.example.dto.CartSnapshotDTO;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
+import java.util.Optional;
 import java.util.UUID;
 
 @Component
 @RequiredArgsConstructor
 public class CartClientImpl implements CartClient {
     private static final Logger log = LoggerFactory.getLogger(CartClientImpl.class);
-    private final WebClient webClient;
+    private final DownstreamClient cartDownstream;
     @Value("${cart.service.url:http://cart-service:8080}")
     private String cartServiceUrl;
 
     @Override
-    public Mono<CartDTO> getCart(UUID userId) {
+    public Mono<CartSnapshotDTO> getCartSnapshot(UUID userId) {
         if (cartServiceUrl == null || cartServiceUrl.trim().isEmpty()) {
             log.error("cartServiceUrl is not configured");
             return Mono.error(new IllegalStateException("cartServiceUrl is not configured"));
         }
-        log.debug("Fetching cart for user: {} with cartServiceUrl: {}", userId, cartServiceUrl);
-        return webClient.get()
-                .uri(cartServiceUrl).attributes(
-                        ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId("purchase-service")
-                )
-                .header("X-User-Id", userId.toString())
-                .retrieve()
-                .bodyToMono(CartDTO.class)
-                .timeout(Duration.ofSeconds(5))
+        log.debug("Fetching cart snapshot for user: {} with cartServiceUrl: {}", userId, cartServiceUrl);
+        return cartDownstream.call("getCartSnapshot", client -> client.get()
+                        .uri(cartServiceUrl + "/snapshot").attributes(
+                                ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId("purchase-service")
+                        )
+                        .header("X-User-Id", userId.toString())
+                        .retrieve()
+                        .bodyToMono(CartSnapshotDTO.class))
                 .doOnSuccess(cart -> log.debug("Successfully fetched cart for user: {}", userId))
                 .onErrorMap(WebClientResponseException.class, e -> {
                     log.error("Failed to get cart for user {}: status={}, body={}", userId, e.getStatusCode(), e.getResponseBodyAsString());
@@ -48,19 +47,19 @@ public class CartClientImpl implements CartClient {
     }
 
     @Override
-    public Mono<Void> clearCart(UUID userId) {
+    public Mono<Void> clearCart(UUID userId, Long version) {
         if (cartServiceUrl == null || cartServiceUrl.trim().isEmpty()) {
             log.error("cartServiceUrl is not configured");
             return Mono.error(new IllegalStateException("cartServiceUrl is not configured"));
         }
-        log.debug("Clearing cart for user: {} with cartServiceUrl: {}", userId, cartServiceUrl);
-        return webClient.delete()
-                .uri(cartServiceUrl).attributes(
-                        ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId("purchase-service"))
-                .header("X-User-Id", userId.toString())
-                .retrieve()
-                .bodyToMono(Void.class)
-                .timeout(Duration.ofSeconds(5))
+        log.debug("Clearing cart for user: {} at version: {} with cartServiceUrl: {}", userId, version, cartServiceUrl);
+        return cartDownstream.call("clearCart", client -> client.delete()
+                        .uri(cartServiceUrl, uriBuilder -> uriBuilder.queryParamIfPresent("version", Optional.ofNullable(version)).build())
+                        .attributes(
+                                ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId("purchase-service"))
+                        .header("X-User-Id", userId.toString())
+                        .retrieve()
+                        .bodyToMono(Void.class))
                 .doOnSuccess(v -> log.debug("Successfully cleared cart for user: {}", userId))
                 .onErrorMap(WebClientResponseException.class, e -> {
                     log.error("Failed to clear cart for user {}: status={}, body={}", userId, e.getStatusCode(), e.getResponseBodyAsString());
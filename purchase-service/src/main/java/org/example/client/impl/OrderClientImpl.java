@@ -2,31 +2,37 @@ package org.example.client.impl;
 
 import lombok.RequiredArgsConstructor;
 import org.example.client.OrderClient;
+import org.example.client.DownstreamClient;
 import org.example.dto.CreateOrderRequestDTO;
 import org.example.dto.OrderDetailDTO;
+import org.example.dto.OrderStatusDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.oauth2.client.web.reactive.function.client.ServerOAuth2AuthorizedClientExchangeFilterFunction;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
+import java.util.Collection;
 import java.util.UUID;
 
 @Component
 @RequiredArgsConstructor
 public class OrderClientImpl implements OrderClient {
-    private final WebClient webClient;
+    private final DownstreamClient orderDownstream;
     private static final Logger log = LoggerFactory.getLogger(OrderClientImpl.class);
 
     @Value("${order.service.url:http://order-service:8080/api/orders}")
     private String orderServiceUrl;
 
+    /**
+     * order-service creates one order per {@code idempotencyKey}, so the call is safe to repeat.
+     */
     @Override
-    public Mono<OrderDetailDTO> createOrder(CreateOrderRequestDTO request) {
+    public Mono<OrderDetailDTO> createOrder(CreateOrderRequestDTO request, String idempotencyKey) {
         if (orderServiceUrl == null || orderServiceUrl.trim().isEmpty()) {
             log.error("orderServiceUrl is not configured");
             return Mono.error(new IllegalStateException("orderServiceUrl is not configured"));
@@ -35,14 +41,14 @@ public class OrderClientImpl implements OrderClient {
         log.debug("Creating order for user: {} with orderServiceUrl: {}", userId, orderServiceUrl);
         log.debug("Request data: items={}", request.items());
 
-        return webClient.post()
-                .uri(orderServiceUrl)
-                .attributes(ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId("purchase-service"))
-                .header("X-User-Id", userId.toString())
-                .bodyValue(request)
-                .retrieve()
-                .bodyToMono(OrderDetailDTO.class)
-                .timeout(Duration.ofSeconds(5))
+        return orderDownstream.call("createOrder", client -> client.post()
+                        .uri(orderServiceUrl)
+                        .attributes(ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId("purchase-service"))
+                        .header("X-User-Id", userId.toString())
+                        .header("Idempotency-Key", idempotencyKey)
+                        .bodyValue(request)
+                        .retrieve()
+                        .bodyToMono(OrderDetailDTO.class))
                 .doOnSuccess(response -> log.debug("Order created successfully for user: {}", userId))
                 .onErrorMap(WebClientResponseException.class, e -> {
                     log.error("Failed to create order for user {}: status={}, body={}", userId, e.getStatusCode(), e.getResponseBodyAsString());
@@ -50,4 +56,55 @@ public class OrderClientImpl implements OrderClient {
                 })
                 .doOnError(e -> log.error("Error during order creation for user {}: {}", userId, e.getMessage(), e));
     }
-}
\ No newline at end of file
+
+    /**
+     * Emits nothing when no order was created with the key.
+     */
+    @Override
+    public Mono<OrderDetailDTO> findByIdempotencyKey(String idempotencyKey) {
+        if (orderServiceUrl == null || orderServiceUrl.trim().isEmpty()) {
+            log.error("orderServiceUrl is not configured");
+            return Mono.error(new IllegalStateException("orderServiceUrl is not configured"));
+        }
+        log.debug("Looking up order with idempotency key: {}", idempotencyKey);
+        return orderDownstream.call("findOrderByIdempotencyKey", client -> client.get()
+                        .uri(orderServiceUrl + "/idempotency-keys/{idempotencyKey}", idempotencyKey)
+                        .attributes(ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId("purchase-service"))
+                        .exchangeToMono(response -> {
+                            if (response.statusCode().is2xxSuccessful()) {
+                                return response.bodyToMono(OrderDetailDTO.class);
+                            }
+                            if (response.statusCode() == HttpStatus.NOT_FOUND) {
+                                return response.releaseBody().then(Mono.<OrderDetailDTO>empty());
+                            }
+                            return response.createException().flatMap(Mono::error);
+                        }))
+                .onErrorMap(WebClientResponseException.class, e -> {
+                    log.error("Failed to look up order {}: status={}, body={}", idempotencyKey, e.getStatusCode(), e.getResponseBodyAsString());
+                    return new RuntimeException("Order service error: " + e.getResponseBodyAsString(), e);
+                })
+                .doOnError(e -> log.error("Error looking up order {}: {}", idempotencyKey, e.getMessage(), e));
+    }
+
+    @Override
+    public Flux<OrderStatusDTO> getOrderStatuses(Collection<Integer> orderIds) {
+        if (orderServiceUrl == null || orderServiceUrl.trim().isEmpty()) {
+            log.error("orderServiceUrl is not configured");
+            return Flux.error(new IllegalStateException("orderServiceUrl is not configured"));
+        }
+        if (orderIds.isEmpty()) {
+            return Flux.empty();
+        }
+        log.debug("Fetching statuses of {} orders with orderServiceUrl: {}", orderIds.size(), orderServiceUrl);
+        return orderDownstream.callMany("getOrderStatuses", client -> client.get()
+                        .uri(orderServiceUrl + "/statuses", uriBuilder -> uriBuilder.queryParam("ids", orderIds).build())
+                        .attributes(ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId("purchase-service"))
+                        .retrieve()
+                        .bodyToFlux(OrderStatusDTO.class))
+                .onErrorMap(WebClientResponseException.class, e -> {
+                    log.error("Failed to get order statuses: status={}, body={}", e.getStatusCode(), e.getResponseBodyAsString());
+                    return new RuntimeException("Order service error: " + e.getResponseBodyAsString(), e);
+                })
+                .doOnError(e -> log.error("Error fetching order statuses: {}", e.getMessage(), e));
+    }
+}
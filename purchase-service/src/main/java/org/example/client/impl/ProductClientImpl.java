@@ -2,28 +2,34 @@ package org.example.client.impl;
 
 import lombok.RequiredArgsConstructor;
 import org.example.client.ProductClient;
+import org.example.client.DownstreamClient;
 import org.example.dto.ProductDetailDTO;
 import org.example.exception.PriceMismatchException;
+import org.example.exception.ProductClientException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
 
 @Component
 @RequiredArgsConstructor
 public class ProductClientImpl implements ProductClient {
-    private final WebClient webClient;
+    private final DownstreamClient productDownstream;
     private static final Logger log = LoggerFactory.getLogger(ProductClientImpl.class);
 
     @Value("${product.detail.url:http://product-detail:8080/api/products}")
     private String productDetailUrl;
 
+    @Value("${product.detail.batch-size:100}")
+    private int batchSize;
+
     @Override
     public Mono<ProductDetailDTO> getProductById(Integer productId) {
         if (productDetailUrl == null || productDetailUrl.trim().isEmpty()) {
@@ -34,11 +40,10 @@ public class ProductClientImpl implements ProductClient {
 
         // Используем полный URL с параметром productId
         String fullUrl = productDetailUrl + "/" + productId;
-        return webClient.get()
-                .uri(fullUrl) // Прямое указание полного URL
-                .retrieve()
-                .bodyToMono(ProductDetailDTO.class)
-                .timeout(Duration.ofSeconds(5))
+        return productDownstream.call("getProductById", client -> client.get()
+                        .uri(fullUrl) // Прямое указание полного URL
+                        .retrieve()
+                        .bodyToMono(ProductDetailDTO.class))
                 .doOnSuccess(product -> log.debug("Successfully fetched product with id: {}", productId))
                 .onErrorMap(WebClientResponseException.class, e -> {
                     log.error("Failed to get product {}: status={}, body={}", productId, e.getStatusCode(), e.getResponseBodyAsString());
@@ -46,4 +51,33 @@ public class ProductClientImpl implements ProductClient {
                 })
                 .doOnError(e -> log.error("Error fetching product {}: {}", productId, e.getMessage(), e));
     }
+
+    @Override
+    public Flux<ProductDetailDTO> getProductsByIds(Collection<Integer> productIds) {
+        if (productDetailUrl == null || productDetailUrl.trim().isEmpty()) {
+            log.error("productDetailUrl is not configured");
+            return Flux.error(new IllegalStateException("productDetailUrl is not configured"));
+        }
+        if (productIds.isEmpty()) {
+            return Flux.empty();
+        }
+        return Flux.fromIterable(productIds)
+                .distinct()
+                .buffer(batchSize)
+                .concatMap(this::fetchBatch);
+    }
+
+    private Flux<ProductDetailDTO> fetchBatch(List<Integer> ids) {
+        log.debug("Fetching {} products with productDetailUrl: {}", ids.size(), productDetailUrl);
+        return productDownstream.callMany("getProductsByIds", client -> client.get()
+                        .uri(productDetailUrl, uriBuilder -> uriBuilder.queryParam("ids", ids).build())
+                        .retrieve()
+                        .bodyToFlux(ProductDetailDTO.class))
+                .doOnComplete(() -> log.debug("Successfully fetched products with ids: {}", ids))
+                .onErrorMap(WebClientResponseException.class, e -> {
+                    log.error("Failed to get products {}: status={}, body={}", ids, e.getStatusCode(), e.getResponseBodyAsString());
+                    return new ProductClientException("Failed to fetch products with IDs: " + ids, e);
+                })
+                .doOnError(e -> log.error("Error fetching products {}: {}", ids, e.getMessage(), e));
+    }
 }
\ No newline at end of file
@@ -2,27 +2,30 @@ package org.example.client.impl;
 
 import lombok.RequiredArgsConstructor;
 import org.example.client.WalletClient;
+import org.example.client.DownstreamClient;
+import org.example.dto.CreditBalanceRequestDTO;
 import org.example.dto.DebitBalanceRequestDTO;
+import org.example.dto.DebitResultDTO;
 import org.example.dto.WalletDTO;
+import org.example.exception.InsufficientBalanceException;
 import org.example.exception.WalletServiceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.oauth2.client.web.reactive.function.client.ServerOAuth2AuthorizedClientExchangeFilterFunction;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
-import java.time.Duration;
 import java.util.UUID;
 
 @Component
 @RequiredArgsConstructor
 public class WalletClientImpl implements WalletClient {
     private static final Logger log = LoggerFactory.getLogger(WalletClientImpl.class);
-    private final WebClient webClient;
+    private final DownstreamClient walletDownstream;
 
     @Value("${wallet.service.url}")
     private String walletServiceUrl;
@@ -34,13 +37,12 @@ public class WalletClientImpl implements WalletClient {
             return Mono.error(new IllegalStateException("walletServiceUrl is not configured"));
         }
         log.debug("Fetching wallet for user: {} with walletServiceUrl: {}", userId, walletServiceUrl);
-        return webClient.get()
-                .uri(walletServiceUrl + "/api/wallets")
-                .attributes(ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId("purchase-service"))
-                .header("X-User-Id", userId.toString())
-                .retrieve()
-                .bodyToMono(WalletDTO.class)
-                .timeout(Duration.ofSeconds(5))
+        return walletDownstream.call("getWallet", client -> client.get()
+                        .uri(walletServiceUrl + "/api/wallets")
+                        .attributes(ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId("purchase-service"))
+                        .header("X-User-Id", userId.toString())
+                        .retrieve()
+                        .bodyToMono(WalletDTO.class))
                 .doOnSuccess(wallet -> log.debug("Successfully fetched wallet for user: {}", userId))
                 .onErrorMap(WebClientResponseException.class, e -> {
                     log.error("Failed to get wallet for user {}: status={}, body={}", userId, e.getStatusCode(), e.getResponseBodyAsString());
@@ -49,22 +51,36 @@ public class WalletClientImpl implements WalletClient {
                 .doOnError(e -> log.error("Error fetching wallet for user {}: {}", userId, e.getMessage(), e));
     }
 
+    /**
+     * Uses wallet-service's conditional debit, so the balance check and the debit are one round trip and one statement.
+     * Emits the balance left after the debit; a refused debit fails with {@link InsufficientBalanceException}.
+     * wallet-service applies a debit once per {@code reference}, so the call is safe to repeat.
+     */
     @Override
-    public Mono<Void> debitBalance(UUID userId, BigDecimal amount) {
+    public Mono<BigDecimal> debitBalance(UUID userId, BigDecimal amount, String reference) {
         if (walletServiceUrl == null || walletServiceUrl.trim().isEmpty()) {
             log.error("walletServiceUrl is not configured");
             return Mono.error(new IllegalStateException("walletServiceUrl is not configured"));
         }
         log.debug("Debiting balance for user: {} with amount: {}", userId, amount);
-        return webClient.put()
-                .uri(walletServiceUrl + "/api/wallets/debit")
-                .attributes(ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId("purchase-service"))
-                .header("X-User-Id", userId.toString())
-                .bodyValue(new DebitBalanceRequestDTO(amount))
-                .retrieve()
-                .bodyToMono(Void.class)
-                .timeout(Duration.ofSeconds(5))
-                .doOnSuccess(v -> log.debug("Successfully debited balance for user: {}", userId))
+        return walletDownstream.call("debitBalance", client -> client.put()
+                        .uri(walletServiceUrl + "/api/wallets/debit/conditional")
+                        .attributes(ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId("purchase-service"))
+                        .header("X-User-Id", userId.toString())
+                        .bodyValue(new DebitBalanceRequestDTO(amount, reference))
+                        .exchangeToMono(response -> {
+                            if (response.statusCode().is2xxSuccessful()) {
+                                return response.bodyToMono(DebitResultDTO.class).map(DebitResultDTO::balance);
+                            }
+                            if (response.statusCode() == HttpStatus.CONFLICT) {
+                                return response.bodyToMono(DebitResultDTO.class)
+                                        .doOnNext(result -> log.debug("Debit refused for user {}: balance={}, shortfall={}",
+                                                userId, result.balance(), result.shortfall()))
+                                        .then(Mono.error(new InsufficientBalanceException(userId)));
+                            }
+                            return response.createException().flatMap(Mono::error);
+                        }))
+                .doOnSuccess(balance -> log.debug("Successfully debited balance for user: {}", userId))
                 .onErrorMap(WebClientResponseException.class, e -> {
                     log.error("Failed to debit balance for user {}: status={}, body={}", userId, e.getStatusCode(), e.getResponseBodyAsString());
                     return new WalletServiceException("Failed to debit balance for user: " + userId, e);
@@ -73,20 +89,49 @@ public class WalletClientImpl implements WalletClient {
     }
 
     @Override
-    public Mono<Void> creditBalance(UUID userId, BigDecimal amount) {
+    public Mono<Boolean> isDebitApplied(UUID userId, String reference) {
+        if (walletServiceUrl == null || walletServiceUrl.trim().isEmpty()) {
+            log.error("walletServiceUrl is not configured");
+            return Mono.error(new IllegalStateException("walletServiceUrl is not configured"));
+        }
+        log.debug("Looking up debit {} for user: {}", reference, userId);
+        return walletDownstream.call("getDebit", client -> client.get()
+                        .uri(walletServiceUrl + "/api/wallets/debits/{reference}", reference)
+                        .attributes(ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId("purchase-service"))
+                        .header("X-User-Id", userId.toString())
+                        .exchangeToMono(response -> {
+                            if (response.statusCode().is2xxSuccessful()) {
+                                return response.releaseBody().thenReturn(true);
+                            }
+                            if (response.statusCode() == HttpStatus.NOT_FOUND) {
+                                return response.releaseBody().thenReturn(false);
+                            }
+                            return response.createException().flatMap(Mono::error);
+                        }))
+                .onErrorMap(WebClientResponseException.class, e -> {
+                    log.error("Failed to look up debit {} for user {}: status={}, body={}", reference, userId, e.getStatusCode(), e.getResponseBodyAsString());
+                    return new WalletServiceException("Failed to look up debit for user: " + userId, e);
+                })
+                .doOnError(e -> log.error("Error looking up debit {} for user {}: {}", reference, userId, e.getMessage(), e));
+    }
+
+    /**
+     * wallet-service applies a credit once per {@code reference}, so the call is safe to repeat.
+     */
+    @Override
+    public Mono<Void> creditBalance(UUID userId, BigDecimal amount, String reference) {
         if (walletServiceUrl == null || walletServiceUrl.trim().isEmpty()) {
             log.error("walletServiceUrl is not configured");
             return Mono.error(new IllegalStateException("walletServiceUrl is not configured"));
         }
         log.debug("Crediting balance for user: {} with amount: {}", userId, amount);
-        return webClient.put()
-                .uri(walletServiceUrl + "/api/wallets/credit")
-                .attributes(ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId("purchase-service"))
-                .header("X-User-Id", userId.toString())
-                .bodyValue(new DebitBalanceRequestDTO(amount))
-                .retrieve()
-                .bodyToMono(Void.class)
-                .timeout(Duration.ofSeconds(5))
+        return walletDownstream.call("creditBalance", client -> client.put()
+                        .uri(walletServiceUrl + "/api/wallets/credit")
+                        .attributes(ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId("purchase-service"))
+                        .header("X-User-Id", userId.toString())
+                        .bodyValue(new CreditBalanceRequestDTO(amount, reference))
+                        .retrieve()
+                        .bodyToMono(Void.class))
                 .doOnSuccess(v -> log.debug("Successfully credited balance for user: {}", userId))
                 .onErrorMap(WebClientResponseException.class, e -> {
                     log.error("Failed to credit balance for user {}: status={}, body={}", userId, e.getStatusCode(), e.getResponseBodyAsString());
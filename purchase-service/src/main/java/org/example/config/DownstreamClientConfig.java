@@ -0,0 +1,63 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import org.example.client.DownstreamClient;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * One {@link DownstreamClient} per called service, each with its own connection pool, so a slow service
+ * exhausts only its own connections. The OAuth2 filter comes from the shared {@link WebClient.Builder}.
+ */
+@Configuration
+@EnableConfigurationProperties(DownstreamClientProperties.class)
+public class DownstreamClientConfig {
+
+    @Bean
+    public DownstreamClient cartDownstream(WebClient.Builder webClientBuilder, DownstreamClientProperties properties,
+                                           MeterRegistry meterRegistry) {
+        return createDownstream("cart", properties.getCart(), webClientBuilder, meterRegistry);
+    }
+
+    @Bean
+    public DownstreamClient walletDownstream(WebClient.Builder webClientBuilder, DownstreamClientProperties properties,
+                                             MeterRegistry meterRegistry) {
+        return createDownstream("wallet", properties.getWallet(), webClientBuilder, meterRegistry);
+    }
+
+    @Bean
+    public DownstreamClient orderDownstream(WebClient.Builder webClientBuilder, DownstreamClientProperties properties,
+                                            MeterRegistry meterRegistry) {
+        return createDownstream("order", properties.getOrder(), webClientBuilder, meterRegistry);
+    }
+
+    @Bean
+    public DownstreamClient productDownstream(WebClient.Builder webClientBuilder, DownstreamClientProperties properties,
+                                              MeterRegistry meterRegistry) {
+        return createDownstream("product", properties.getProduct(), webClientBuilder, meterRegistry);
+    }
+
+    private DownstreamClient createDownstream(String name, DownstreamClientProperties.Downstream settings,
+                                              WebClient.Builder webClientBuilder, MeterRegistry meterRegistry) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("purchase-" + name)
+                .maxConnections(settings.getMaxConnections())
+                .pendingAcquireMaxCount(settings.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(settings.getPendingAcquireTimeout())
+                .metrics(true)
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) settings.getConnectTimeout().toMillis())
+                .responseTimeout(settings.getTimeout());
+        WebClient webClient = webClientBuilder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+        return new DownstreamClient(name, webClient, connectionProvider, settings.getTimeout(),
+                settings.getMaxConcurrency(), meterRegistry);
+    }
+}
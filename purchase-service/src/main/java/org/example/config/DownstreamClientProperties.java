@@ -0,0 +1,31 @@
+package org.example.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Connection pool, concurrency limit and timeout for each service purchase-service calls.
+ */
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "purchase.clients")
+public class DownstreamClientProperties {
+    private Downstream cart = new Downstream();
+    private Downstream wallet = new Downstream();
+    private Downstream order = new Downstream();
+    private Downstream product = new Downstream();
+
+    @Setter
+    @Getter
+    public static class Downstream {
+        private int maxConnections = 50;
+        private int pendingAcquireMaxCount = 100;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(2);
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        private Duration timeout = Duration.ofSeconds(5);
+        private int maxConcurrency = 100;
+    }
+}
@@ -2,10 +2,12 @@ package org.example.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.ReactiveTransactionManager;
 import org.springframework.transaction.reactive.TransactionalOperator;
 
 @Configuration
+@EnableScheduling
 public class PurchaseConfig {
     @Bean
     public TransactionalOperator transactionalOperator(ReactiveTransactionManager transactionManager) {
@@ -0,0 +1,23 @@
+package org.example.config;
+
+import org.example.dto.PurchaseResponseDTO;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+
+@Configuration
+public class PurchaseRedisConfig {
+
+    @Bean
+    public ReactiveRedisTemplate<String, PurchaseResponseDTO> purchaseResponseRedisTemplate(
+            ReactiveRedisConnectionFactory factory, RedisConfig redisConfig) {
+        return redisConfig.createReactiveRedisTemplate(factory, PurchaseResponseDTO.class);
+    }
+
+    @Bean
+    public ReactiveRedisMessageListenerContainer purchaseEventListenerContainer(ReactiveRedisConnectionFactory factory) {
+        return new ReactiveRedisMessageListenerContainer(factory);
+    }
+}
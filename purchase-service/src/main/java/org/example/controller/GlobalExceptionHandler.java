@@ -30,6 +30,36 @@ public class GlobalExceptionHandler extends BaseExceptionHandler {
         return createErrorResponse(ex, exchange, HttpStatus.BAD_REQUEST, "Price Mismatch");
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    public Mono<ResponseEntity<ApiError>> handleInvalidCursor(InvalidCursorException ex, ServerWebExchange exchange) {
+        log.debug("Invalid cursor: {}", ex.getMessage());
+        return createErrorResponse(ex, exchange, HttpStatus.BAD_REQUEST, "Invalid Cursor");
+    }
+
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public Mono<ResponseEntity<ApiError>> handleIdempotencyConflict(IdempotencyConflictException ex, ServerWebExchange exchange) {
+        log.debug("Idempotency conflict: {}", ex.getMessage());
+        return createErrorResponse(ex, exchange, HttpStatus.CONFLICT, "Request In Progress");
+    }
+
+    @ExceptionHandler(IdempotentCheckoutFailedException.class)
+    public Mono<ResponseEntity<ApiError>> handleIdempotentCheckoutFailed(IdempotentCheckoutFailedException ex, ServerWebExchange exchange) {
+        log.debug("Replaying failed checkout: {}", ex.getMessage());
+        return createErrorResponse(ex, exchange, HttpStatus.INTERNAL_SERVER_ERROR, "Checkout Failed");
+    }
+
+    @ExceptionHandler(CheckoutRejectedException.class)
+    public Mono<ResponseEntity<ApiError>> handleCheckoutRejected(CheckoutRejectedException ex, ServerWebExchange exchange) {
+        log.warn("Checkout rejected: {}", ex.getMessage());
+        return createErrorResponse(ex, exchange, HttpStatus.SERVICE_UNAVAILABLE, "Checkout Busy");
+    }
+
+    @ExceptionHandler(DownstreamBusyException.class)
+    public Mono<ResponseEntity<ApiError>> handleDownstreamBusy(DownstreamBusyException ex, ServerWebExchange exchange) {
+        log.warn("Downstream busy: {}", ex.getMessage());
+        return createErrorResponse(ex, exchange, HttpStatus.SERVICE_UNAVAILABLE, "Dependency Busy");
+    }
+
     @ExceptionHandler(WebExchangeBindException.class)
     public Mono<ResponseEntity<ApiError>> handleValidationException(WebExchangeBindException ex, ServerWebExchange exchange) {
         String message = ex.getFieldErrors().stream()
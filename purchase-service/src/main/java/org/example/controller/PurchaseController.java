@@ -2,16 +2,30 @@ package org.example.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+import org.example.dto.PurchasePageDTO;
 import org.example.dto.PurchaseResponseDTO;
+import org.example.enums.PaymentStatus;
+import org.example.service.PurchaseIdempotencyService;
 import org.example.service.PurchaseService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/purchases")
@@ -20,15 +34,80 @@ import java.util.UUID;
 @Validated
 public class PurchaseController {
 
+    private static final String RESPOND_ASYNC = "respond-async";
+    private static final Duration STREAM_HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
+
     private final PurchaseService purchaseService;
+    private final PurchaseIdempotencyService idempotencyService;
 
+    /**
+     * Runs checkout while the request waits, or with {@code Prefer: respond-async} accepts it with 202
+     * and a Location to poll or stream.
+     */
     @PostMapping
     public Mono<ResponseEntity<PurchaseResponseDTO>> createPurchase(
-            @AuthenticationPrincipal Jwt jwt) {
+            @AuthenticationPrincipal Jwt jwt,
+            @RequestHeader(value = "Idempotency-Key", required = false) @Size(max = 255) String idempotencyKey,
+            @RequestHeader(value = "Prefer", required = false) String prefer) {
         UUID userId = UUID.fromString(jwt.getSubject());
-        log.debug("Creating purchase for user: {}", userId);
-        return purchaseService.createPurchase(userId)
-                .map(ResponseEntity::ok)
+        boolean async = prefer != null && prefer.contains(RESPOND_ASYNC);
+        log.debug("Creating purchase for user: {}, idempotency key: {}, async: {}", userId, idempotencyKey, async);
+        Supplier<Mono<PurchaseResponseDTO>> checkout = async
+                ? () -> purchaseService.submitPurchase(userId)
+                : () -> purchaseService.createPurchase(userId);
+        Mono<PurchaseResponseDTO> purchase = idempotencyKey == null || idempotencyKey.isBlank()
+                ? checkout.get()
+                : idempotencyService.execute(userId, idempotencyKey, checkout);
+        return purchase
+                .map(response -> async
+                        ? ResponseEntity.accepted()
+                                .location(URI.create("/api/purchases/" + response.id()))
+                                .header("Preference-Applied", RESPOND_ASYNC)
+                                .body(response)
+                        : ResponseEntity.ok(response))
                 .doOnSuccess(response -> log.debug("Purchase created for user: {}", userId));
     }
+
+    @GetMapping
+    public Mono<ResponseEntity<PurchasePageDTO>> getPurchases(
+            @AuthenticationPrincipal Jwt jwt,
+            @RequestParam(required = false) PaymentStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int size) {
+        UUID userId = UUID.fromString(jwt.getSubject());
+        log.debug("Fetching purchases for user: {}, status: {}, from: {}, to: {}", userId, status, from, to);
+        return purchaseService.getPurchases(userId, status, from, to, cursor, size)
+                .map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<PurchaseResponseDTO>> getPurchase(
+            @AuthenticationPrincipal Jwt jwt,
+            @PathVariable Integer id) {
+        UUID userId = UUID.fromString(jwt.getSubject());
+        log.debug("Fetching purchase {} for user: {}", id, userId);
+        return purchaseService.getPurchase(userId, id)
+                .map(ResponseEntity::ok);
+    }
+
+    @GetMapping(value = "/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<PurchaseResponseDTO>> streamPurchase(
+            @AuthenticationPrincipal Jwt jwt,
+            @PathVariable Integer id) {
+        UUID userId = UUID.fromString(jwt.getSubject());
+        log.debug("Opening purchase event stream {} for user: {}", id, userId);
+        return purchaseService.streamPurchase(userId, id)
+                .map(purchase -> ServerSentEvent.<PurchaseResponseDTO>builder()
+                        .event(purchase.paymentStatus().name())
+                        .data(purchase)
+                        .build())
+                .publish(events -> Flux.merge(events, Flux.interval(STREAM_HEARTBEAT_INTERVAL)
+                        .map(tick -> ServerSentEvent.<PurchaseResponseDTO>builder()
+                                .comment("heartbeat")
+                                .build())
+                        .takeUntilOther(events.then())))
+                .doFinally(signal -> log.debug("Closed purchase event stream {} for user: {} ({})", id, userId, signal));
+    }
 }
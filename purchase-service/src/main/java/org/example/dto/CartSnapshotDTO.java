@@ -0,0 +1,18 @@
+package org.example.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+public record CartSnapshotDTO(
+        String id,
+        UUID userId,
+        Long version,
+        List<LineDTO> items
+) {
+    public record LineDTO(
+            Integer productId,
+            Integer quantity,
+            BigDecimal priceAtTime
+    ) {}
+}
@@ -1,10 +1,12 @@
 package org.example.dto;
 
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 
 import java.math.BigDecimal;
 
 public record DebitBalanceRequestDTO(
         @Positive
-        BigDecimal amount)
+        BigDecimal amount,
+        @Size(max = 100) String reference)
 {}
\ No newline at end of file
@@ -0,0 +1,9 @@
+package org.example.dto;
+
+import java.math.BigDecimal;
+
+public record DebitResultDTO(
+        boolean debited,
+        BigDecimal balance,
+        BigDecimal shortfall)
+{}
@@ -0,0 +1,12 @@
+package org.example.dto;
+
+import java.util.List;
+
+/**
+ * One page of purchase history, newest first; {@code nextCursor} is {@code null} on the last page.
+ */
+public record PurchasePageDTO(
+        List<PurchaseResponseDTO> items,
+        String nextCursor
+) {
+}
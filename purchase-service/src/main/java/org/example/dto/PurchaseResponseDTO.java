@@ -7,10 +7,12 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 public record PurchaseResponseDTO(
+        Integer id,
         Integer orderId,
         UUID userId,
         BigDecimal totalAmount,
         PaymentStatus paymentStatus,
-        LocalDateTime transactionDate
+        LocalDateTime transactionDate,
+        String details
 ) {
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package org.example.enums;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS,
+    COMPLETED,
+    FAILED
+}
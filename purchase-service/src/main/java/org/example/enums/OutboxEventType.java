@@ -0,0 +1,7 @@
+package org.example.enums;
+
+public enum OutboxEventType {
+    CREATE_ORDER,
+    CLEAR_CART,
+    REFUND_WALLET
+}
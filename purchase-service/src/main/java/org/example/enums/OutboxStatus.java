@@ -0,0 +1,7 @@
+package org.example.enums;
+
+public enum OutboxStatus {
+    PENDING,
+    DONE,
+    FAILED
+}
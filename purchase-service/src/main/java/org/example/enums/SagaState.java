@@ -0,0 +1,11 @@
+package org.example.enums;
+
+public enum SagaState {
+    DEBIT_PENDING,
+    FUNDS_DEBITED,
+    COMPLETED,
+    COMPENSATING,
+    COMPENSATED,
+    FAILED,
+    NEEDS_REVIEW
+}
@@ -0,0 +1,7 @@
+package org.example.exception;
+
+public class CheckoutRejectedException extends ServiceException {
+    public CheckoutRejectedException() {
+        super("Too many checkouts in progress, please retry later");
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.exception;
+
+public class DownstreamBusyException extends ServiceException {
+    public DownstreamBusyException(String downstream) {
+        super("Too many calls in flight to " + downstream + "-service, please retry later");
+    }
+}
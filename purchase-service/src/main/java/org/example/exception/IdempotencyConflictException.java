@@ -0,0 +1,7 @@
+package org.example.exception;
+
+public class IdempotencyConflictException extends ServiceException {
+    public IdempotencyConflictException(String idempotencyKey) {
+        super("A purchase with Idempotency-Key " + idempotencyKey + " is still in progress");
+    }
+}
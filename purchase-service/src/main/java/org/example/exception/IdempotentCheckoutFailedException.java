@@ -0,0 +1,7 @@
+package org.example.exception;
+
+public class IdempotentCheckoutFailedException extends ServiceException {
+    public IdempotentCheckoutFailedException(String idempotencyKey, String error) {
+        super("The purchase with Idempotency-Key " + idempotencyKey + " failed after payment may have been taken: " + error);
+    }
+}
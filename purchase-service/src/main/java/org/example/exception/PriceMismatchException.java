@@ -1,7 +1,21 @@
 package org.example.exception;
 
+import java.util.List;
+
 public class PriceMismatchException extends ServiceException {
+    private final List<Integer> productIds;
+
     public PriceMismatchException(Integer productId) {
         super("Price mismatch for product ID: " + productId);
+        this.productIds = List.of(productId);
+    }
+
+    public PriceMismatchException(List<Integer> productIds, String details) {
+        super("Price mismatch for product IDs " + productIds + ": " + details);
+        this.productIds = List.copyOf(productIds);
+    }
+
+    public List<Integer> getProductIds() {
+        return productIds;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,7 @@
+package org.example.exception;
+
+public class PurchaseNotFoundException extends NotFoundException {
+    public PurchaseNotFoundException(Integer purchaseId) {
+        super("Purchase not found with ID: {0}", purchaseId);
+    }
+}
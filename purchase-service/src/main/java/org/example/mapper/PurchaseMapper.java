@@ -9,10 +9,14 @@ import java.math.BigDecimal;
 
 @Mapper(componentModel = "spring")
 public interface PurchaseMapper {
+    @Mapping(source = "purchase.id", target = "id")
     @Mapping(source = "purchase.orderId", target = "orderId")
     @Mapping(source = "purchase.userId", target = "userId")
     @Mapping(source = "totalAmount", target = "totalAmount")
     @Mapping(source = "purchase.paymentStatus", target = "paymentStatus")
     @Mapping(source = "purchase.transactionDate", target = "transactionDate")
+    @Mapping(source = "purchase.details", target = "details")
     PurchaseResponseDTO toResponseDto(Purchase purchase, BigDecimal totalAmount);
+
+    PurchaseResponseDTO toResponseDto(Purchase purchase);
 }
\ No newline at end of file
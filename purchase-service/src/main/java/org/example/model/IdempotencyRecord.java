@@ -0,0 +1,35 @@
+package org.example.model;
+
+import org.example.enums.IdempotencyStatus;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Table("purchase_idempotency_keys")
+public record IdempotencyRecord(
+        @Id
+        Long id,
+
+        @Column("user_id")
+        UUID userId,
+
+        @Column("idempotency_key")
+        String idempotencyKey,
+
+        IdempotencyStatus status,
+
+        String response,
+
+        @Column("created_at")
+        LocalDateTime createdAt,
+
+        @Column("expires_at")
+        LocalDateTime expiresAt,
+
+        @Column("saga_id")
+        Long sagaId
+) {
+}
@@ -0,0 +1,37 @@
+package org.example.model;
+
+import org.example.enums.OutboxEventType;
+import org.example.enums.OutboxStatus;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+@Table("purchase_outbox")
+public record OutboxEvent(
+        @Id
+        Long id,
+
+        @Column("saga_id")
+        Long sagaId,
+
+        @Column("event_type")
+        OutboxEventType eventType,
+
+        String payload,
+
+        OutboxStatus status,
+
+        Integer attempts,
+
+        @Column("available_at")
+        LocalDateTime availableAt,
+
+        @Column("last_error")
+        String lastError,
+
+        @Column("created_at")
+        LocalDateTime createdAt
+) {
+}
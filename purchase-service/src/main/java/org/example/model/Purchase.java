@@ -7,6 +7,7 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -15,7 +16,6 @@ public record Purchase(
         @Id
         Integer id,
 
-        @NotNull
         @Column("order_id")
         Integer orderId,
 
@@ -30,6 +30,9 @@ public record Purchase(
         LocalDateTime transactionDate,
 
         @Size(max = 1000)
-        String details
+        String details,
+
+        @Column("total_amount")
+        BigDecimal totalAmount
 ) {
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package org.example.model;
+
+import org.example.enums.SagaState;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Table("purchase_sagas")
+public record PurchaseSaga(
+        @Id
+        Long id,
+
+        @Column("user_id")
+        UUID userId,
+
+        SagaState state,
+
+        @Column("total_amount")
+        BigDecimal totalAmount,
+
+        @Column("order_id")
+        Integer orderId,
+
+        @Column("purchase_id")
+        Integer purchaseId,
+
+        @Column("last_error")
+        String lastError,
+
+        @Column("created_at")
+        LocalDateTime createdAt,
+
+        @Column("updated_at")
+        LocalDateTime updatedAt,
+
+        @Column("cart_version")
+        Long cartVersion,
+
+        @Column("order_request")
+        String orderRequest
+) {
+}
@@ -0,0 +1,56 @@
+package org.example.repository;
+
+import org.example.model.IdempotencyRecord;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public interface IdempotencyRecordRepository extends ReactiveCrudRepository<IdempotencyRecord, Long> {
+
+    /**
+     * Reserves the key for the caller; returns empty when another request holds it or it has an unexpired result.
+     */
+    @Query("INSERT INTO purchase_idempotency_keys (user_id, idempotency_key, status, created_at, expires_at) " +
+            "VALUES (:userId, :idempotencyKey, 'IN_PROGRESS', :now, :expiresAt) " +
+            "ON CONFLICT (user_id, idempotency_key) DO UPDATE SET status = 'IN_PROGRESS', response = NULL, saga_id = NULL, " +
+            "created_at = :now, expires_at = :expiresAt " +
+            "WHERE purchase_idempotency_keys.expires_at < :now " +
+            "RETURNING *")
+    Mono<IdempotencyRecord> tryReserve(UUID userId, String idempotencyKey, LocalDateTime now, LocalDateTime expiresAt);
+
+    @Query("SELECT * FROM purchase_idempotency_keys WHERE user_id = :userId AND idempotency_key = :idempotencyKey")
+    Mono<IdempotencyRecord> findByUserIdAndKey(UUID userId, String idempotencyKey);
+
+    @Modifying
+    @Query("UPDATE purchase_idempotency_keys SET status = 'COMPLETED', response = :response " +
+            "WHERE user_id = :userId AND idempotency_key = :idempotencyKey")
+    Mono<Integer> complete(UUID userId, String idempotencyKey, String response);
+
+    @Modifying
+    @Query("UPDATE purchase_idempotency_keys SET status = 'FAILED', response = :error " +
+            "WHERE user_id = :userId AND idempotency_key = :idempotencyKey")
+    Mono<Integer> fail(UUID userId, String idempotencyKey, String error);
+
+    @Modifying
+    @Query("UPDATE purchase_idempotency_keys SET saga_id = :sagaId " +
+            "WHERE user_id = :userId AND idempotency_key = :idempotencyKey")
+    Mono<Integer> attachSaga(UUID userId, String idempotencyKey, Long sagaId);
+
+    /**
+     * Releases the key only while its checkout never got past the debit: no saga was started, or its debit was refused.
+     */
+    @Modifying
+    @Query("DELETE FROM purchase_idempotency_keys k " +
+            "WHERE k.user_id = :userId AND k.idempotency_key = :idempotencyKey AND k.status = 'IN_PROGRESS' " +
+            "AND NOT EXISTS (SELECT 1 FROM purchase_sagas s WHERE s.id = k.saga_id AND s.state <> 'FAILED')")
+    Mono<Integer> releaseBeforeDebit(UUID userId, String idempotencyKey);
+
+    @Modifying
+    @Query("DELETE FROM purchase_idempotency_keys WHERE id IN " +
+            "(SELECT id FROM purchase_idempotency_keys WHERE expires_at < :now LIMIT :limit)")
+    Mono<Integer> deleteExpired(LocalDateTime now, int limit);
+}
@@ -0,0 +1,34 @@
+package org.example.repository;
+
+import org.example.model.OutboxEvent;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+public interface OutboxEventRepository extends ReactiveCrudRepository<OutboxEvent, Long> {
+
+    /**
+     * Claims due events by pushing their availability past the lease, so concurrent workers skip them.
+     */
+    @Query("UPDATE purchase_outbox SET available_at = :leaseUntil, attempts = attempts + 1 " +
+            "WHERE id IN (SELECT id FROM purchase_outbox WHERE status = 'PENDING' AND available_at <= :now " +
+            "ORDER BY available_at LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+            "RETURNING *")
+    Flux<OutboxEvent> claimDue(LocalDateTime now, LocalDateTime leaseUntil, int limit);
+
+    @Modifying
+    @Query("UPDATE purchase_outbox SET status = :status, last_error = :lastError WHERE id = :id")
+    Mono<Integer> updateStatus(Long id, String status, String lastError);
+
+    @Modifying
+    @Query("UPDATE purchase_outbox SET available_at = :availableAt, last_error = :lastError " +
+            "WHERE id = :id AND status = 'PENDING'")
+    Mono<Integer> reschedule(Long id, LocalDateTime availableAt, String lastError);
+
+    @Query("SELECT COUNT(*) FROM purchase_outbox WHERE status = 'PENDING'")
+    Mono<Long> countPending();
+}
@@ -3,10 +3,14 @@ package org.example.repository;
 import org.example.enums.PaymentStatus;
 import org.example.model.Purchase;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.UUID;
 
 public interface PurchaseRepository extends ReactiveCrudRepository<Purchase, Integer> {
@@ -20,4 +24,53 @@ public interface PurchaseRepository extends ReactiveCrudRepository<Purchase, Int
     Flux<Purchase> findByPaymentStatus(PaymentStatus paymentStatus, Pageable pageable);
 
     Mono<Long> countByPaymentStatus(PaymentStatus paymentStatus);
+
+    Mono<Purchase> findByIdAndUserId(Integer id, UUID userId);
+
+    @Query("UPDATE purchases SET order_id = :orderId, transaction_date = :transactionDate, details = 'Payment via card' " +
+            "WHERE id = :id AND order_id IS NULL AND payment_status = 'PENDING' RETURNING *")
+    Mono<Purchase> attachOrder(Integer id, Integer orderId, LocalDateTime transactionDate);
+
+    /**
+     * Leaves the purchase alone while a saga for it can still debit, order or refund; that saga settles it instead.
+     */
+    @Modifying
+    @Query("UPDATE purchases p SET payment_status = 'FAILED', details = :details " +
+            "WHERE p.id = :id AND p.payment_status = 'PENDING' AND p.order_id IS NULL " +
+            "AND NOT EXISTS (SELECT 1 FROM purchase_sagas s WHERE s.purchase_id = p.id " +
+            "AND s.state IN ('DEBIT_PENDING', 'FUNDS_DEBITED', 'COMPENSATING', 'NEEDS_REVIEW'))")
+    Mono<Integer> markFailed(Integer id, String details);
+
+    @Modifying
+    @Query("UPDATE purchases SET payment_status = 'REFUNDED' WHERE id = :id AND payment_status IN ('PENDING', 'FAILED')")
+    Mono<Integer> markRefunded(Integer id);
+
+    /**
+     * Next batch of PENDING purchases with an order, in id order after {@code afterId}; served by idx_purchases_pending.
+     */
+    @Query("SELECT * FROM purchases WHERE payment_status = 'PENDING' AND order_id IS NOT NULL " +
+            "AND transaction_date < :before AND id > :afterId ORDER BY id LIMIT :limit")
+    Flux<Purchase> findPendingWithOrder(LocalDateTime before, Integer afterId, int limit);
+
+    @Modifying
+    @Query("UPDATE purchases SET payment_status = :status, details = :details " +
+            "WHERE id IN (:ids) AND payment_status = 'PENDING'")
+    Mono<Integer> settlePending(Collection<Integer> ids, String status, String details);
+
+    /**
+     * Like {@link #settlePending} for a failure, but returns the ids this call moved, so each is refunded exactly once.
+     */
+    @Query("UPDATE purchases SET payment_status = 'FAILED', details = :details " +
+            "WHERE id IN (:ids) AND payment_status = 'PENDING' RETURNING id")
+    Flux<Integer> failPending(Collection<Integer> ids, String details);
+
+    /**
+     * Fails accepted checkouts that never got an order and have no saga still able to produce one.
+     */
+    @Modifying
+    @Query("UPDATE purchases p SET payment_status = 'FAILED', details = 'Checkout did not complete' " +
+            "WHERE p.payment_status = 'PENDING' AND p.order_id IS NULL AND p.transaction_date < :before " +
+            "AND NOT EXISTS (SELECT 1 FROM purchase_sagas s WHERE s.purchase_id = p.id " +
+            "AND s.state IN ('DEBIT_PENDING', 'FUNDS_DEBITED', 'COMPENSATING', 'NEEDS_REVIEW'))")
+    Mono<Integer> failAbandonedCheckouts(LocalDateTime before);
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package org.example.repository;
+
+import org.example.model.PurchaseSaga;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+public interface PurchaseSagaRepository extends ReactiveCrudRepository<PurchaseSaga, Long> {
+
+    @Modifying
+    @Query("UPDATE purchase_sagas SET state = :state, last_error = :lastError, updated_at = :updatedAt " +
+            "WHERE id = :id")
+    Mono<Integer> updateState(Long id, String state, String lastError, LocalDateTime updatedAt);
+
+    @Modifying
+    @Query("UPDATE purchase_sagas SET state = 'COMPLETED', order_id = :orderId, purchase_id = :purchaseId, " +
+            "last_error = NULL, updated_at = :updatedAt WHERE id = :id")
+    Mono<Integer> markCompleted(Long id, Integer orderId, Integer purchaseId, LocalDateTime updatedAt);
+
+    /**
+     * Moves the completed sagas behind the given purchases to COMPENSATING; served by idx_purchase_sagas_purchase_id.
+     */
+    @Query("UPDATE purchase_sagas SET state = 'COMPENSATING', last_error = :reason, updated_at = :updatedAt " +
+            "WHERE purchase_id IN (:purchaseIds) AND state = 'COMPLETED' " +
+            "RETURNING *")
+    Flux<PurchaseSaga> startRefunds(Collection<Integer> purchaseIds, String reason, LocalDateTime updatedAt);
+
+    /**
+     * Moves the saga on from DEBIT_PENDING only; a saga already resolved by another replica is left alone.
+     */
+    @Modifying
+    @Query("UPDATE purchase_sagas SET state = :state, last_error = :lastError, updated_at = :updatedAt " +
+            "WHERE id = :id AND state = 'DEBIT_PENDING'")
+    Mono<Integer> resolveDebit(Long id, String state, String lastError, LocalDateTime updatedAt);
+
+    /**
+     * Claims a batch of sagas stuck in DEBIT_PENDING by pushing their {@code updated_at} forward, which doubles as
+     * the lease: an unresolved saga comes up again only after another {@code before} interval.
+     */
+    @Query("UPDATE purchase_sagas SET updated_at = :now " +
+            "WHERE id IN (SELECT id FROM purchase_sagas WHERE state = 'DEBIT_PENDING' AND updated_at < :before " +
+            "ORDER BY updated_at LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+            "RETURNING *")
+    Flux<PurchaseSaga> claimStaleDebits(LocalDateTime before, LocalDateTime now, int limit);
+}
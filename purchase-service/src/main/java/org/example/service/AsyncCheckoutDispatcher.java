@@ -0,0 +1,86 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.example.exception.CheckoutRejectedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Bounded pool for checkouts accepted with {@code 202 Accepted}.
+ * At most {@code purchase.async.concurrency} checkouts run at once and at most {@code purchase.async.capacity}
+ * are accepted but unfinished; beyond that new submissions are rejected before anything is persisted.
+ */
+@Component
+public class AsyncCheckoutDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(AsyncCheckoutDispatcher.class);
+
+    private final Sinks.Many<Mono<Void>> jobs = Sinks.many().unicast().onBackpressureBuffer();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final int capacity;
+    private final Counter rejected;
+    private final Disposable worker;
+
+    public AsyncCheckoutDispatcher(MeterRegistry meterRegistry,
+                                   @Value("${purchase.async.concurrency:16}") int concurrency,
+                                   @Value("${purchase.async.capacity:500}") int capacity) {
+        this.capacity = capacity;
+        this.rejected = Counter.builder("purchase.checkout.async.rejected")
+                .description("Asynchronous checkouts rejected because the pool was full")
+                .register(meterRegistry);
+        Gauge.builder("purchase.checkout.async.pending", pending, AtomicInteger::get)
+                .description("Asynchronous checkouts accepted but not yet finished")
+                .register(meterRegistry);
+        this.worker = jobs.asFlux()
+                .flatMap(job -> job
+                        .onErrorResume(e -> {
+                            log.error("Asynchronous checkout failed", e);
+                            return Mono.empty();
+                        })
+                        .doFinally(signal -> pending.decrementAndGet()), concurrency)
+                .subscribe();
+    }
+
+    /**
+     * Reserves a slot, runs {@code acceptance} on the caller's subscription and queues {@code work} for its result.
+     * The slot is released when the work finishes, or straight away if acceptance fails or yields nothing.
+     */
+    public <T> Mono<T> submit(Mono<T> acceptance, Function<T, Mono<Void>> work) {
+        return Mono.defer(() -> {
+            if (pending.incrementAndGet() > capacity) {
+                pending.decrementAndGet();
+                rejected.increment();
+                return Mono.error(new CheckoutRejectedException());
+            }
+            AtomicBoolean queued = new AtomicBoolean();
+            return acceptance
+                    .doOnNext(accepted -> {
+                        jobs.emitNext(Mono.defer(() -> work.apply(accepted)),
+                                Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+                        queued.set(true);
+                    })
+                    .doFinally(signal -> {
+                        if (!queued.get()) {
+                            pending.decrementAndGet();
+                        }
+                    });
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.dispose();
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.repository.OutboxEventRepository;
+import org.example.repository.PurchaseSagaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resumes checkout sagas left behind by a crash or a failed downstream call.
+ * Outbox rows are claimed with {@code FOR UPDATE SKIP LOCKED} and a lease, so every replica can run the worker.
+ */
+@Component
+@ConditionalOnProperty(name = "purchase.saga.recovery.enabled", havingValue = "true", matchIfMissing = true)
+public class CheckoutRecoveryWorker {
+    private static final Logger log = LoggerFactory.getLogger(CheckoutRecoveryWorker.class);
+
+    private final CheckoutSagaOrchestrator orchestrator;
+    private final OutboxEventRepository outboxRepository;
+    private final PurchaseSagaRepository sagaRepository;
+    private final Duration lease;
+    private final Duration inDoubtAfter;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final int concurrency;
+    private final AtomicLong pendingEvents = new AtomicLong();
+
+    public CheckoutRecoveryWorker(CheckoutSagaOrchestrator orchestrator,
+                                  OutboxEventRepository outboxRepository,
+                                  PurchaseSagaRepository sagaRepository,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${purchase.saga.lease:PT1M}") Duration lease,
+                                  @Value("${purchase.saga.recovery.in-doubt-after:PT5M}") Duration inDoubtAfter,
+                                  @Value("${purchase.saga.recovery.batch-size:50}") int batchSize,
+                                  @Value("${purchase.saga.recovery.max-batches-per-run:10}") int maxBatchesPerRun,
+                                  @Value("${purchase.saga.recovery.concurrency:4}") int concurrency) {
+        this.orchestrator = orchestrator;
+        this.outboxRepository = outboxRepository;
+        this.sagaRepository = sagaRepository;
+        this.lease = lease;
+        this.inDoubtAfter = inDoubtAfter;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.concurrency = concurrency;
+        Gauge.builder("purchase.saga.outbox.pending", pendingEvents, AtomicLong::get)
+                .description("Outbox events waiting to be processed")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${purchase.saga.recovery.interval:PT15S}",
+            initialDelayString = "${purchase.saga.recovery.initial-delay:PT30S}")
+    public Mono<Void> recover() {
+        return resolveInDoubtDebits()
+                .then(processDueEvents())
+                .then(outboxRepository.countPending())
+                .doOnNext(pendingEvents::set)
+                .then()
+                .onErrorResume(e -> {
+                    log.error("Checkout recovery run failed", e);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * A saga still waiting on its debit after {@code in-doubt-after} lost its request mid-call; wallet-service is
+     * asked whether the debit keyed on the saga was applied, and the saga continues or fails accordingly.
+     */
+    private Mono<Void> resolveInDoubtDebits() {
+        LocalDateTime now = LocalDateTime.now();
+        return sagaRepository.claimStaleDebits(now.minus(inDoubtAfter), now, batchSize)
+                .doOnNext(saga -> log.info("Resolving debit outcome of saga {} for user {}", saga.id(), saga.userId()))
+                .flatMap(orchestrator::resolveDebit, concurrency)
+                .then();
+    }
+
+    private Mono<Long> processDueEvents() {
+        return Flux.range(0, maxBatchesPerRun)
+                .concatMap(batch -> {
+                    LocalDateTime now = LocalDateTime.now();
+                    return outboxRepository.claimDue(now, now.plus(lease), batchSize)
+                            .flatMap(event -> orchestrator.resume(event).thenReturn(event), concurrency)
+                            .count();
+                })
+                .takeUntil(claimed -> claimed < batchSize)
+                .reduce(0L, Long::sum)
+                .doOnNext(total -> {
+                    if (total > 0) {
+                        log.info("Processed {} checkout outbox events", total);
+                    }
+                });
+    }
+}
@@ -0,0 +1,377 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.client.CartClient;
+import org.example.client.OrderClient;
+import org.example.client.WalletClient;
+import org.example.dto.CreateOrderRequestDTO;
+import org.example.dto.OrderDetailDTO;
+import org.example.enums.OutboxEventType;
+import org.example.enums.OutboxStatus;
+import org.example.enums.PaymentStatus;
+import org.example.enums.SagaState;
+import org.example.exception.DownstreamBusyException;
+import org.example.exception.InsufficientBalanceException;
+import org.example.exception.PurchaseException;
+import org.example.model.OutboxEvent;
+import org.example.model.Purchase;
+import org.example.model.PurchaseSaga;
+import org.example.repository.OutboxEventRepository;
+import org.example.repository.PurchaseRepository;
+import org.example.repository.PurchaseSagaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Drives checkout after validation as a persisted saga: debit, order creation, purchase record, cart clear.
+ * Each step after the debit is written to the outbox in the same transaction as the state change that
+ * requires it, with a lease; the request thread processes it right away, and if the pod dies the
+ * {@link CheckoutRecoveryWorker} claims it once the lease expires. The debit itself is keyed on the saga, so a saga
+ * whose debit outcome was lost is settled by asking wallet-service rather than by hand.
+ */
+@Component
+public class CheckoutSagaOrchestrator {
+    private static final Logger log = LoggerFactory.getLogger(CheckoutSagaOrchestrator.class);
+    private static final String DEBIT_REFERENCE_PREFIX = "purchase-saga-debit:";
+    private static final String REFUND_REFERENCE_PREFIX = "purchase-saga-refund:";
+    private static final String ORDER_KEY_PREFIX = "purchase-saga-order:";
+
+    private final PurchaseSagaRepository sagaRepository;
+    private final OutboxEventRepository outboxRepository;
+    private final PurchaseRepository purchaseRepository;
+    private final OrderClient orderClient;
+    private final CartClient cartClient;
+    private final WalletClient walletClient;
+    private final TransactionalOperator transactionalOperator;
+    private final ObjectMapper objectMapper;
+    private final CheckoutStageTimer stageTimer;
+    private final PurchaseIdempotencyService idempotencyService;
+    private final MeterRegistry meterRegistry;
+    private final Duration lease;
+    private final Duration retryBackoff;
+    private final int maxAttempts;
+
+    public CheckoutSagaOrchestrator(PurchaseSagaRepository sagaRepository,
+                                    OutboxEventRepository outboxRepository,
+                                    PurchaseRepository purchaseRepository,
+                                    OrderClient orderClient,
+                                    CartClient cartClient,
+                                    WalletClient walletClient,
+                                    TransactionalOperator transactionalOperator,
+                                    ObjectMapper objectMapper,
+                                    CheckoutStageTimer stageTimer,
+                                    PurchaseIdempotencyService idempotencyService,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${purchase.saga.lease:PT1M}") Duration lease,
+                                    @Value("${purchase.saga.retry-backoff:PT30S}") Duration retryBackoff,
+                                    @Value("${purchase.saga.max-attempts:5}") int maxAttempts) {
+        this.sagaRepository = sagaRepository;
+        this.outboxRepository = outboxRepository;
+        this.purchaseRepository = purchaseRepository;
+        this.orderClient = orderClient;
+        this.cartClient = cartClient;
+        this.walletClient = walletClient;
+        this.transactionalOperator = transactionalOperator;
+        this.objectMapper = objectMapper;
+        this.stageTimer = stageTimer;
+        this.idempotencyService = idempotencyService;
+        this.meterRegistry = meterRegistry;
+        this.lease = lease;
+        this.retryBackoff = retryBackoff;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * A {@code null} purchase id creates the purchase once the order exists; otherwise the order is attached to the
+     * purchase accepted earlier. Only the cart at {@code cartVersion} is cleared afterwards. The order request is
+     * stored with the saga before the debit, so recovery can carry on from it. A refused debit fails the saga; any
+     * other debit error may have arrived after wallet-service committed, so the saga stays DEBIT_PENDING until
+     * {@link #resolveDebit} finds out.
+     */
+    public Mono<Purchase> execute(UUID userId, BigDecimal totalAmount, CreateOrderRequestDTO orderRequest,
+                                  Integer purchaseId, Long cartVersion) {
+        LocalDateTime now = LocalDateTime.now();
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(orderRequest))
+                .map(payload -> new PurchaseSaga(null, userId, SagaState.DEBIT_PENDING, totalAmount,
+                        null, purchaseId, null, now, now, cartVersion, payload))
+                .flatMap(saga -> sagaRepository.save(saga)
+                        .flatMap(saved -> idempotencyService.attachSaga(saved.id()).thenReturn(saved))
+                        .as(transactionalOperator::transactional))
+                .doOnNext(saga -> countTransition(SagaState.DEBIT_PENDING))
+                .flatMap(saga -> stageTimer.time("debit", walletClient.debitBalance(userId, totalAmount, debitReference(saga)))
+                        .onErrorResume(e -> {
+                            if (isRefused(e)) {
+                                return failDebit(saga, errorMessage(e)).then(Mono.error(e));
+                            }
+                            log.warn("Debit of {} for user {} has an unknown outcome, saga {} is left to recovery: {}",
+                                    totalAmount, userId, saga.id(), errorMessage(e));
+                            return Mono.error(e);
+                        })
+                        .then(recordDebit(saga))
+                        .flatMap(event -> createOrder(saga, event, true)));
+    }
+
+    /**
+     * Settles a saga whose debit outcome was never recorded by asking wallet-service whether the debit keyed on the
+     * saga was applied: if it was, checkout carries on to the order, otherwise the saga fails. Only sagas older than
+     * {@code purchase.saga.recovery.in-doubt-after} get here, long after their debit request timed out, so a debit
+     * not found by then will not land later. A failed lookup leaves the saga for the next run.
+     */
+    public Mono<Void> resolveDebit(PurchaseSaga saga) {
+        if (saga.orderRequest() == null) {
+            log.error("Saga {} for user {} has no stored order request and needs review", saga.id(), saga.userId());
+            return sagaRepository.resolveDebit(saga.id(), SagaState.NEEDS_REVIEW.name(),
+                            "Order request not recorded", LocalDateTime.now())
+                    .doOnSuccess(updated -> countTransition(SagaState.NEEDS_REVIEW))
+                    .then();
+        }
+        return walletClient.isDebitApplied(saga.userId(), debitReference(saga))
+                .flatMap(applied -> {
+                    if (!applied) {
+                        log.info("Debit for saga {} never reached the wallet of user {}, failing it", saga.id(), saga.userId());
+                        return failDebit(saga, "Wallet debit was not applied");
+                    }
+                    log.info("Debit for saga {} was applied, continuing to the order", saga.id());
+                    return recordDebit(saga)
+                            .flatMap(event -> createOrder(saga, event, false))
+                            .then();
+                })
+                .onErrorResume(e -> {
+                    log.warn("Debit outcome of saga {} not resolved, retrying later: {}", saga.id(), errorMessage(e));
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Continues a claimed outbox event; failures are rescheduled or compensated, never propagated.
+     */
+    public Mono<Void> resume(OutboxEvent event) {
+        log.info("Resuming {} for saga {} (attempt {})", event.eventType(), event.sagaId(), event.attempts());
+        return sagaRepository.findById(event.sagaId())
+                .flatMap(saga -> switch (event.eventType()) {
+                    case CREATE_ORDER -> createOrder(saga, event, false).then();
+                    case CLEAR_CART -> clearCart(saga, event);
+                    case REFUND_WALLET -> refundWallet(saga, event);
+                })
+                .onErrorResume(e -> {
+                    log.warn("Outbox event {} for saga {} not completed: {}", event.id(), event.sagaId(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Queues a wallet refund for each completed saga behind the given purchases, whose orders were cancelled after
+     * checkout. Meant to join the caller's transaction; the {@link CheckoutRecoveryWorker} credits the wallets.
+     */
+    public Mono<Void> enqueueRefunds(Collection<Integer> purchaseIds, String reason) {
+        if (purchaseIds.isEmpty()) {
+            return Mono.empty();
+        }
+        return sagaRepository.startRefunds(purchaseIds, reason, LocalDateTime.now())
+                .concatMap(saga -> enqueue(saga, OutboxEventType.REFUND_WALLET, null))
+                .doOnNext(event -> countTransition(SagaState.COMPENSATING))
+                .then();
+    }
+
+    private Mono<OutboxEvent> recordDebit(PurchaseSaga saga) {
+        return sagaRepository.resolveDebit(saga.id(), SagaState.FUNDS_DEBITED.name(), null, LocalDateTime.now())
+                .filter(updated -> updated > 0)
+                .switchIfEmpty(Mono.error(new PurchaseException("Debit of saga " + saga.id() + " was already resolved")))
+                .then(enqueue(saga, OutboxEventType.CREATE_ORDER, saga.orderRequest()))
+                .as(transactionalOperator::transactional)
+                .doOnSuccess(event -> countTransition(SagaState.FUNDS_DEBITED));
+    }
+
+    private Mono<Void> failDebit(PurchaseSaga saga, String reason) {
+        return sagaRepository.resolveDebit(saga.id(), SagaState.FAILED.name(), reason, LocalDateTime.now())
+                .doOnSuccess(updated -> countTransition(SagaState.FAILED))
+                .then();
+    }
+
+    /**
+     * The order is keyed on the saga, so order-service creates it once however often the call is repeated. Inline
+     * attempts retry the call twice, as the caller is waiting for the outcome. A refusal compensates right away; any
+     * other failure may have come after order-service committed, so it is rescheduled until
+     * {@code purchase.saga.max-attempts} is reached and then looked up by key before the user is refunded.
+     */
+    private Mono<Purchase> createOrder(PurchaseSaga saga, OutboxEvent event, boolean inline) {
+        return Mono.fromCallable(() -> objectMapper.readValue(event.payload(), CreateOrderRequestDTO.class))
+                .flatMap(request -> stageTimer.time("create_order", orderClient.createOrder(request, orderKey(saga))
+                        .retry(inline ? 2 : 0)))
+                .onErrorResume(e -> {
+                    if (isRefused(e)) {
+                        return startCompensation(saga, event, e).then(Mono.error(e));
+                    }
+                    if (event.attempts() < maxAttempts) {
+                        return reschedule(event, e).then(Mono.error(e));
+                    }
+                    return confirmOrder(saga, event, e);
+                })
+                .flatMap(order -> stageTimer.time("save_purchase", recordOrder(saga, event, order)))
+                .flatMap(result -> clearCart(saga, result.getT2())
+                        .thenReturn(result.getT1()));
+    }
+
+    /**
+     * Compensates only once order-service confirms no order exists for the saga; a failed lookup keeps the event
+     * scheduled.
+     */
+    private Mono<OrderDetailDTO> confirmOrder(PurchaseSaga saga, OutboxEvent event, Throwable cause) {
+        return orderClient.findByIdempotencyKey(orderKey(saga))
+                .doOnNext(order -> log.info("Order {} for saga {} exists despite the failed call, continuing", order.id(), saga.id()))
+                .switchIfEmpty(Mono.defer(() -> startCompensation(saga, event, cause).then(Mono.error(cause))))
+                .onErrorResume(e -> e != cause, e -> reschedule(event, e).then(Mono.error(cause)));
+    }
+
+    private Mono<Tuple2<Purchase, OutboxEvent>> recordOrder(PurchaseSaga saga, OutboxEvent event, OrderDetailDTO order) {
+        log.debug("Saving purchase for order: {}, user: {}", order.id(), saga.userId());
+        return savePurchase(saga, order)
+                .flatMap(saved -> sagaRepository.markCompleted(saga.id(), order.id(), saved.id(), LocalDateTime.now())
+                        .then(outboxRepository.updateStatus(event.id(), OutboxStatus.DONE.name(), null))
+                        .then(enqueue(saga, OutboxEventType.CLEAR_CART, null))
+                        .map(clearEvent -> Tuples.of(saved, clearEvent)))
+                .as(transactionalOperator::transactional)
+                .doOnSuccess(result -> countTransition(SagaState.COMPLETED));
+    }
+
+    private Mono<Purchase> savePurchase(PurchaseSaga saga, OrderDetailDTO order) {
+        if (saga.purchaseId() != null) {
+            return purchaseRepository.attachOrder(saga.purchaseId(), order.id(), LocalDateTime.now())
+                    .switchIfEmpty(Mono.error(new PurchaseException(
+                            "Purchase " + saga.purchaseId() + " already has an order or does not exist")));
+        }
+        Purchase purchase = new Purchase(
+                null,
+                order.id(),
+                saga.userId(),
+                PaymentStatus.PENDING,
+                LocalDateTime.now(),
+                "Payment via card",
+                saga.totalAmount()
+        );
+        return purchaseRepository.save(purchase);
+    }
+
+    /**
+     * The purchase is complete once the order exists; a cart that cannot be cleared is retried but never undoes it.
+     * A cart changed since the snapshot was charged is left alone.
+     */
+    private Mono<Void> clearCart(PurchaseSaga saga, OutboxEvent event) {
+        return stageTimer.time("clear_cart", cartClient.clearCart(saga.userId(), saga.cartVersion()))
+                .onErrorResume(this::isCartSuperseded, e -> {
+                    log.info("Cart of user {} is gone or past version {}, not clearing", saga.userId(), saga.cartVersion());
+                    return Mono.empty();
+                })
+                .then(outboxRepository.updateStatus(event.id(), OutboxStatus.DONE.name(), null))
+                .then()
+                .onErrorResume(e -> {
+                    if (event.attempts() < maxAttempts) {
+                        return reschedule(event, e);
+                    }
+                    log.error("Giving up clearing cart for user {} after {} attempts", saga.userId(), event.attempts(), e);
+                    return outboxRepository.updateStatus(event.id(), OutboxStatus.FAILED.name(), errorMessage(e)).then();
+                });
+    }
+
+    private Mono<Void> startCompensation(PurchaseSaga saga, OutboxEvent failed, Throwable cause) {
+        log.warn("Compensating saga {} for user {}: {}", saga.id(), saga.userId(), cause.getMessage());
+        return outboxRepository.updateStatus(failed.id(), OutboxStatus.FAILED.name(), errorMessage(cause))
+                .then(sagaRepository.updateState(saga.id(), SagaState.COMPENSATING.name(), errorMessage(cause), LocalDateTime.now()))
+                .then(enqueue(saga, OutboxEventType.REFUND_WALLET, null))
+                .as(transactionalOperator::transactional)
+                .doOnSuccess(event -> countTransition(SagaState.COMPENSATING))
+                .flatMap(refund -> refundWallet(saga, refund))
+                .onErrorResume(e -> {
+                    log.error("Compensation for saga {} deferred to recovery", saga.id(), e);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * The credit is keyed on the saga, so resuming a refund whose outcome was never recorded cannot pay it twice.
+     */
+    private Mono<Void> refundWallet(PurchaseSaga saga, OutboxEvent event) {
+        log.debug("Refunding balance for user: {}, amount: {}", saga.userId(), saga.totalAmount());
+        return walletClient.creditBalance(saga.userId(), saga.totalAmount(), REFUND_REFERENCE_PREFIX + saga.id())
+                .then(outboxRepository.updateStatus(event.id(), OutboxStatus.DONE.name(), null)
+                        .then(sagaRepository.updateState(saga.id(), SagaState.COMPENSATED.name(), null, LocalDateTime.now()))
+                        .then(saga.purchaseId() != null ? purchaseRepository.markRefunded(saga.purchaseId()) : Mono.just(0))
+                        .as(transactionalOperator::transactional))
+                .doOnSuccess(updated -> countTransition(SagaState.COMPENSATED))
+                .then()
+                .onErrorResume(e -> {
+                    if (event.attempts() < maxAttempts) {
+                        return reschedule(event, e);
+                    }
+                    log.error("Refund of {} for user {} failed after {} attempts, saga {} needs review",
+                            saga.totalAmount(), saga.userId(), event.attempts(), saga.id(), e);
+                    return outboxRepository.updateStatus(event.id(), OutboxStatus.FAILED.name(), errorMessage(e))
+                            .then(transition(saga, SagaState.NEEDS_REVIEW, e));
+                });
+    }
+
+    private Mono<OutboxEvent> enqueue(PurchaseSaga saga, OutboxEventType type, String payload) {
+        return outboxRepository.save(new OutboxEvent(null, saga.id(), type, payload, OutboxStatus.PENDING, 0,
+                LocalDateTime.now().plus(lease), null, null));
+    }
+
+    private Mono<Void> reschedule(OutboxEvent event, Throwable cause) {
+        log.warn("Rescheduling {} for saga {} after attempt {}: {}", event.eventType(), event.sagaId(), event.attempts(), cause.getMessage());
+        return outboxRepository.reschedule(event.id(), LocalDateTime.now().plus(retryBackoff), errorMessage(cause))
+                .then();
+    }
+
+    private Mono<Void> transition(PurchaseSaga saga, SagaState state, Throwable cause) {
+        return sagaRepository.updateState(saga.id(), state.name(), errorMessage(cause), LocalDateTime.now())
+                .doOnSuccess(updated -> countTransition(state))
+                .then();
+    }
+
+    /**
+     * Definite only when the service answered with a 4xx, or the bulkhead refused the call before it was sent.
+     * Timeouts, 5xx responses and connection errors leave the call's outcome unknown.
+     */
+    private boolean isRefused(Throwable e) {
+        if (e instanceof InsufficientBalanceException || e instanceof DownstreamBusyException) {
+            return true;
+        }
+        return e.getCause() instanceof WebClientResponseException response
+                && response.getStatusCode().is4xxClientError();
+    }
+
+    private String debitReference(PurchaseSaga saga) {
+        return DEBIT_REFERENCE_PREFIX + saga.id();
+    }
+
+    private String orderKey(PurchaseSaga saga) {
+        return ORDER_KEY_PREFIX + saga.id();
+    }
+
+    private boolean isCartSuperseded(Throwable e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        return cause instanceof WebClientResponseException.NotFound
+                || cause instanceof WebClientResponseException.Conflict;
+    }
+
+    private String errorMessage(Throwable e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    private void countTransition(SagaState state) {
+        meterRegistry.counter("purchase.saga.transitions", "state", state.name()).increment();
+    }
+}
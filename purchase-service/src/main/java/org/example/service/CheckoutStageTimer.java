@@ -0,0 +1,31 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Times checkout stages as {@code purchase.checkout.stage}, tagged by stage and outcome.
+ */
+@Component
+@RequiredArgsConstructor
+public class CheckoutStageTimer {
+    private final MeterRegistry meterRegistry;
+
+    public <T> Mono<T> time(String stage, Mono<T> source) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return source.doFinally(signal -> sample.stop(Timer.builder("purchase.checkout.stage")
+                    .description("Duration of a checkout stage")
+                    .tag("stage", stage)
+                    .tag("outcome", switch (signal) {
+                        case ON_COMPLETE -> "success";
+                        case ON_ERROR -> "error";
+                        default -> "cancelled";
+                    })
+                    .register(meterRegistry)));
+        });
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.service;
+
+import org.example.dto.PurchaseResponseDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Fans purchase status changes out to every replica over Redis pub/sub, one channel per purchase.
+ */
+@Component
+public class PurchaseEventPublisher {
+    private static final Logger log = LoggerFactory.getLogger(PurchaseEventPublisher.class);
+    private static final String CHANNEL_PREFIX = "purchase-events:";
+
+    private final ReactiveRedisTemplate<String, PurchaseResponseDTO> purchaseRedisTemplate;
+    private final ReactiveRedisMessageListenerContainer listenerContainer;
+
+    public PurchaseEventPublisher(ReactiveRedisTemplate<String, PurchaseResponseDTO> purchaseResponseRedisTemplate,
+                                  ReactiveRedisMessageListenerContainer purchaseEventListenerContainer) {
+        this.purchaseRedisTemplate = purchaseResponseRedisTemplate;
+        this.listenerContainer = purchaseEventListenerContainer;
+    }
+
+    public Mono<Void> publish(PurchaseResponseDTO purchase) {
+        String channel = CHANNEL_PREFIX + purchase.id();
+        return purchaseRedisTemplate.convertAndSend(channel, purchase)
+                .doOnNext(receivers -> log.debug("Published {} to {} ({} receivers)", purchase.paymentStatus(), channel, receivers))
+                .then()
+                .onErrorResume(e -> {
+                    log.warn("Failed to publish purchase event to channel: {}", channel, e);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Completes once the channel subscription is registered with Redis, emitting the status stream.
+     */
+    public Mono<Flux<PurchaseResponseDTO>> listen(Integer purchaseId) {
+        RedisSerializationContext<String, PurchaseResponseDTO> serializationContext = purchaseRedisTemplate.getSerializationContext();
+        return listenerContainer.receiveLater(List.of(ChannelTopic.of(CHANNEL_PREFIX + purchaseId)),
+                        serializationContext.getKeySerializationPair(),
+                        serializationContext.getValueSerializationPair())
+                .map(messages -> messages.map(ReactiveSubscription.Message::getMessage));
+    }
+}
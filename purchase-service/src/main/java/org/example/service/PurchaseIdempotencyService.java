@@ -0,0 +1,185 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.dto.PurchaseResponseDTO;
+import org.example.enums.IdempotencyStatus;
+import org.example.exception.IdempotencyConflictException;
+import org.example.exception.IdempotentCheckoutFailedException;
+import org.example.model.IdempotencyRecord;
+import org.example.repository.IdempotencyRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Runs a checkout at most once per {@code Idempotency-Key} and user, and replays its response for {@code purchase.idempotency.ttl}.
+ * Results live in Redis for fast replays and in Postgres, which also arbitrates concurrent requests across replicas.
+ * Duplicates arriving at the same instance share the in-flight execution; duplicates on other instances wait for its result.
+ * A checkout that fails before the debit releases the key so the client can retry it; any later failure is recorded
+ * and replayed, since the user may already have been charged. Which side of the debit a failure falls on is read from
+ * the saga the checkout started, linked to the key through {@link #attachSaga}, not from the exception type.
+ */
+@Component
+public class PurchaseIdempotencyService {
+    private static final Logger log = LoggerFactory.getLogger(PurchaseIdempotencyService.class);
+    private static final String CACHE_PREFIX = "purchase-idempotency::";
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final ReactiveRedisTemplate<String, PurchaseResponseDTO> responseRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration pollInterval;
+    private final int maxPolls;
+    private final int cleanupBatchSize;
+    private final Map<String, Mono<PurchaseResponseDTO>> inFlight = new ConcurrentHashMap<>();
+
+    public PurchaseIdempotencyService(IdempotencyRecordRepository recordRepository,
+                                      ReactiveRedisTemplate<String, PurchaseResponseDTO> purchaseResponseRedisTemplate,
+                                      ObjectMapper objectMapper,
+                                      @Value("${purchase.idempotency.ttl:PT24H}") Duration ttl,
+                                      @Value("${purchase.idempotency.poll-interval:PT0.5S}") Duration pollInterval,
+                                      @Value("${purchase.idempotency.max-polls:20}") int maxPolls,
+                                      @Value("${purchase.idempotency.cleanup-batch-size:1000}") int cleanupBatchSize) {
+        this.recordRepository = recordRepository;
+        this.responseRedisTemplate = purchaseResponseRedisTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.pollInterval = pollInterval;
+        this.maxPolls = maxPolls;
+        this.cleanupBatchSize = cleanupBatchSize;
+    }
+
+    /**
+     * Links the saga to the key reserved by the checkout running in this reactive context, if any. Called before the
+     * debit; a failure aborts the checkout, as the key could otherwise be released after money moved.
+     */
+    public Mono<Void> attachSaga(Long sagaId) {
+        return Mono.deferContextual(context -> context.<Reservation>getOrEmpty(Reservation.class)
+                .map(reservation -> recordRepository.attachSaga(reservation.userId(), reservation.idempotencyKey(), sagaId)
+                        .then())
+                .orElse(Mono.empty()));
+    }
+
+    public Mono<PurchaseResponseDTO> execute(UUID userId, String idempotencyKey, Supplier<Mono<PurchaseResponseDTO>> checkout) {
+        String cacheKey = buildCacheKey(userId, idempotencyKey);
+        return Mono.defer(() -> inFlight.computeIfAbsent(cacheKey, key -> getCachedResponse(key)
+                .switchIfEmpty(Mono.defer(() -> reserveAndRun(userId, idempotencyKey, cacheKey, checkout)))
+                .doFinally(signal -> inFlight.remove(key))
+                .cache()));
+    }
+
+    @Scheduled(fixedDelayString = "${purchase.idempotency.cleanup-interval:PT1H}", initialDelayString = "PT5M")
+    public Mono<Void> deleteExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        return Flux.range(0, Integer.MAX_VALUE)
+                .concatMap(batch -> recordRepository.deleteExpired(now, cleanupBatchSize))
+                .takeUntil(deleted -> deleted < cleanupBatchSize)
+                .reduce(0, Integer::sum)
+                .doOnNext(total -> log.info("Deleted {} expired idempotency keys", total))
+                .then()
+                .onErrorResume(e -> {
+                    log.error("Failed to delete expired idempotency keys", e);
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<PurchaseResponseDTO> reserveAndRun(UUID userId, String idempotencyKey, String cacheKey,
+                                                    Supplier<Mono<PurchaseResponseDTO>> checkout) {
+        LocalDateTime now = LocalDateTime.now();
+        return recordRepository.tryReserve(userId, idempotencyKey, now, now.plus(ttl))
+                .flatMap(reserved -> checkout.get()
+                        .contextWrite(Context.of(Reservation.class, new Reservation(userId, idempotencyKey)))
+                        .flatMap(response -> storeResponse(userId, idempotencyKey, cacheKey, response))
+                        .onErrorResume(e -> recordRepository.releaseBeforeDebit(userId, idempotencyKey)
+                                .flatMap(released -> released > 0
+                                        ? Mono.<Void>empty()
+                                        : storeFailure(userId, idempotencyKey, e))
+                                .onErrorResume(releaseError -> {
+                                    log.error("Failed to settle Idempotency-Key {} of user {}", idempotencyKey, userId, releaseError);
+                                    return Mono.empty();
+                                })
+                                .then(Mono.error(e))))
+                .switchIfEmpty(Mono.defer(() -> awaitResponse(userId, idempotencyKey, cacheKey)));
+    }
+
+    private Mono<PurchaseResponseDTO> storeResponse(UUID userId, String idempotencyKey, String cacheKey,
+                                                    PurchaseResponseDTO response) {
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(response))
+                .flatMap(json -> recordRepository.complete(userId, idempotencyKey, json))
+                .then(cacheResponse(cacheKey, response))
+                .thenReturn(response)
+                .onErrorResume(e -> {
+                    log.error("Failed to store response for Idempotency-Key {} of user {}", idempotencyKey, userId, e);
+                    return Mono.just(response);
+                });
+    }
+
+    private Mono<Void> storeFailure(UUID userId, String idempotencyKey, Throwable cause) {
+        log.warn("Keeping Idempotency-Key {} of user {} after a failure past validation: {}", idempotencyKey, userId,
+                cause.getMessage());
+        return recordRepository.fail(userId, idempotencyKey,
+                        cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName())
+                .then()
+                .onErrorResume(e -> {
+                    log.error("Failed to store failure for Idempotency-Key {} of user {}", idempotencyKey, userId, e);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Another instance holds the key: polls Postgres until it records a response, or gives up with a conflict.
+     */
+    private Mono<PurchaseResponseDTO> awaitResponse(UUID userId, String idempotencyKey, String cacheKey) {
+        return Mono.defer(() -> recordRepository.findByUserIdAndKey(userId, idempotencyKey))
+                .filter(existing -> existing.status() != IdempotencyStatus.IN_PROGRESS)
+                .repeatWhenEmpty(maxPolls, attempts -> attempts.delayElements(pollInterval))
+                .switchIfEmpty(Mono.error(new IdempotencyConflictException(idempotencyKey)))
+                .flatMap(this::readResponse)
+                .flatMap(response -> cacheResponse(cacheKey, response).thenReturn(response));
+    }
+
+    private Mono<PurchaseResponseDTO> readResponse(IdempotencyRecord existing) {
+        if (existing.status() == IdempotencyStatus.FAILED) {
+            return Mono.error(new IdempotentCheckoutFailedException(existing.idempotencyKey(), existing.response()));
+        }
+        return Mono.fromCallable(() -> objectMapper.readValue(existing.response(), PurchaseResponseDTO.class));
+    }
+
+    private Mono<PurchaseResponseDTO> getCachedResponse(String cacheKey) {
+        return responseRedisTemplate.opsForValue().get(cacheKey)
+                .doOnNext(response -> log.debug("Replaying stored response for {}", cacheKey))
+                .onErrorResume(e -> {
+                    log.error("Failed to access cache for key: {}", cacheKey, e);
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> cacheResponse(String cacheKey, PurchaseResponseDTO response) {
+        return responseRedisTemplate.opsForValue()
+                .set(cacheKey, response, ttl)
+                .then()
+                .onErrorResume(e -> {
+                    log.warn("Failed to cache response for key: {}", cacheKey, e);
+                    return Mono.empty();
+                });
+    }
+
+    private String buildCacheKey(UUID userId, String idempotencyKey) {
+        return CACHE_PREFIX + userId + ":" + idempotencyKey;
+    }
+
+    private record Reservation(UUID userId, String idempotencyKey) {}
+}
@@ -0,0 +1,196 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.client.OrderClient;
+import org.example.dto.OrderStatusDTO;
+import org.example.enums.OrderStatus;
+import org.example.enums.PaymentStatus;
+import org.example.model.Purchase;
+import org.example.repository.PurchaseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuples;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves PENDING purchases older than {@code purchase.reconciliation.min-age} to their final status from the order's status
+ * in order-service. Purchases are read in id-ordered batches, one status lookup per batch, and each outcome is written
+ * with a single set-based update. The id cursor carries over between runs so a long tail of still-pending orders is not
+ * rescanned from the start every time. Updates only touch rows still PENDING, so concurrent replicas are harmless.
+ * A cancelled order fails its purchase and queues a wallet refund in the same transaction; an order missing from
+ * order-service's answer leaves the purchase PENDING, to be looked at again on the next run.
+ */
+@Component
+@ConditionalOnProperty(name = "purchase.reconciliation.enabled", havingValue = "true", matchIfMissing = true)
+public class PurchaseReconciliationJob {
+    private static final Logger log = LoggerFactory.getLogger(PurchaseReconciliationJob.class);
+
+    private final PurchaseRepository purchaseRepository;
+    private final OrderClient orderClient;
+    private final CheckoutSagaOrchestrator sagaOrchestrator;
+    private final TransactionalOperator transactionalOperator;
+    private final MeterRegistry meterRegistry;
+    private final Duration minAge;
+    private final Duration abandonAfter;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Timer runTimer;
+    private final AtomicInteger cursor = new AtomicInteger();
+    private final AtomicLong backlog = new AtomicLong();
+
+    public PurchaseReconciliationJob(PurchaseRepository purchaseRepository,
+                                     OrderClient orderClient,
+                                     CheckoutSagaOrchestrator sagaOrchestrator,
+                                     TransactionalOperator transactionalOperator,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${purchase.reconciliation.min-age:PT10M}") Duration minAge,
+                                     @Value("${purchase.reconciliation.abandon-after:PT1H}") Duration abandonAfter,
+                                     @Value("${purchase.reconciliation.batch-size:200}") int batchSize,
+                                     @Value("${purchase.reconciliation.max-batches-per-run:25}") int maxBatchesPerRun) {
+        this.purchaseRepository = purchaseRepository;
+        this.orderClient = orderClient;
+        this.sagaOrchestrator = sagaOrchestrator;
+        this.transactionalOperator = transactionalOperator;
+        this.meterRegistry = meterRegistry;
+        this.minAge = minAge;
+        this.abandonAfter = abandonAfter;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.runTimer = Timer.builder("purchase.reconciliation.duration")
+                .description("Time taken by one reconciliation run")
+                .register(meterRegistry);
+        Gauge.builder("purchase.reconciliation.backlog", backlog, AtomicLong::get)
+                .description("Purchases still PENDING after the last reconciliation run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${purchase.reconciliation.interval:PT5M}",
+            initialDelayString = "${purchase.reconciliation.initial-delay:PT1M}")
+    public Mono<Void> reconcile() {
+        LocalDateTime now = LocalDateTime.now();
+        long start = System.nanoTime();
+        return purchaseRepository.failAbandonedCheckouts(now.minus(abandonAfter))
+                .doOnNext(failed -> countSettled(PaymentStatus.FAILED, failed))
+                .then(reconcileBatches(now.minus(minAge)))
+                .doOnNext(total -> {
+                    long elapsed = System.nanoTime() - start;
+                    runTimer.record(elapsed, TimeUnit.NANOSECONDS);
+                    log.info("Reconciled {} pending purchases in {} ms", total, TimeUnit.NANOSECONDS.toMillis(elapsed));
+                })
+                .then(purchaseRepository.countByPaymentStatus(PaymentStatus.PENDING))
+                .doOnNext(backlog::set)
+                .then()
+                .onErrorResume(e -> {
+                    log.error("Purchase reconciliation failed", e);
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Long> reconcileBatches(LocalDateTime before) {
+        return Flux.range(0, maxBatchesPerRun)
+                .concatMap(batch -> purchaseRepository.findPendingWithOrder(before, cursor.get(), batchSize)
+                        .collectList()
+                        .flatMap(purchases -> {
+                            if (purchases.size() < batchSize) {
+                                cursor.set(0);
+                            } else {
+                                cursor.set(purchases.get(purchases.size() - 1).id());
+                            }
+                            return reconcileBatch(purchases).map(settled -> Tuples.of(purchases.size(), settled));
+                        }))
+                .takeUntil(counts -> counts.getT1() < batchSize)
+                .reduce(0L, (total, counts) -> total + counts.getT2());
+    }
+
+    private Mono<Integer> reconcileBatch(List<Purchase> purchases) {
+        if (purchases.isEmpty()) {
+            return Mono.just(0);
+        }
+        List<Integer> orderIds = purchases.stream().map(Purchase::orderId).distinct().toList();
+        return orderClient.getOrderStatuses(orderIds)
+                .collectMap(OrderStatusDTO::id, OrderStatusDTO::status)
+                .flatMap(statuses -> {
+                    Map<Outcome, List<Integer>> outcomes = new HashMap<>();
+                    List<Integer> missingOrderIds = new ArrayList<>();
+                    for (Purchase purchase : purchases) {
+                        OrderStatus orderStatus = statuses.get(purchase.orderId());
+                        if (orderStatus == null) {
+                            missingOrderIds.add(purchase.orderId());
+                            continue;
+                        }
+                        Outcome outcome = Outcome.of(orderStatus);
+                        if (outcome != null) {
+                            outcomes.computeIfAbsent(outcome, o -> new ArrayList<>()).add(purchase.id());
+                        }
+                    }
+                    if (!missingOrderIds.isEmpty()) {
+                        log.warn("Orders {} missing from order-service, leaving their purchases PENDING", missingOrderIds);
+                        meterRegistry.counter("purchase.reconciliation.missing").increment(missingOrderIds.size());
+                    }
+                    return Flux.fromIterable(outcomes.entrySet())
+                            .concatMap(entry -> settle(entry.getKey(), entry.getValue()))
+                            .reduce(0, Integer::sum);
+                });
+    }
+
+    private Mono<Integer> settle(Outcome outcome, List<Integer> purchaseIds) {
+        Mono<Integer> settled = outcome.refund
+                ? purchaseRepository.failPending(purchaseIds, outcome.details)
+                        .collectList()
+                        .flatMap(failed -> sagaOrchestrator.enqueueRefunds(failed, outcome.details)
+                                .thenReturn(failed.size()))
+                        .as(transactionalOperator::transactional)
+                : purchaseRepository.settlePending(purchaseIds, outcome.status.name(), outcome.details);
+        return settled.doOnNext(updated -> countSettled(outcome.status, updated));
+    }
+
+    private void countSettled(PaymentStatus status, int count) {
+        if (count > 0) {
+            meterRegistry.counter("purchase.reconciliation.settled", "status", status.name()).increment(count);
+        }
+    }
+
+    private enum Outcome {
+        COMPLETED(PaymentStatus.COMPLETED, "Payment via card", false),
+        CANCELLED(PaymentStatus.FAILED, "Order cancelled", true);
+
+        private final PaymentStatus status;
+        private final String details;
+        private final boolean refund;
+
+        Outcome(PaymentStatus status, String details, boolean refund) {
+            this.status = status;
+            this.details = details;
+            this.refund = refund;
+        }
+
+        /**
+         * Returns {@code null} while the order itself is still pending.
+         */
+        static Outcome of(OrderStatus orderStatus) {
+            return switch (orderStatus) {
+                case COMPLETED -> COMPLETED;
+                case CANCELLED -> CANCELLED;
+                case PENDING -> null;
+            };
+        }
+    }
+}
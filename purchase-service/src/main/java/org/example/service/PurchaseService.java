@@ -1,10 +1,23 @@
 package org.example.service;
 
+import org.example.dto.PurchasePageDTO;
 import org.example.dto.PurchaseResponseDTO;
+import org.example.enums.PaymentStatus;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 public interface PurchaseService {
     Mono<PurchaseResponseDTO> createPurchase(UUID userId);
+
+    Mono<PurchaseResponseDTO> submitPurchase(UUID userId);
+
+    Mono<PurchaseResponseDTO> getPurchase(UUID userId, Integer purchaseId);
+
+    Flux<PurchaseResponseDTO> streamPurchase(UUID userId, Integer purchaseId);
+
+    Mono<PurchasePageDTO> getPurchases(UUID userId, PaymentStatus status, LocalDateTime from, LocalDateTime to,
+                                       String cursor, int size);
 }
\ No newline at end of file
@@ -2,67 +2,137 @@ package org.example.service;
 
 import lombok.RequiredArgsConstructor;
 import org.example.client.CartClient;
-import org.example.client.OrderClient;
 import org.example.client.ProductClient;
-import org.example.client.WalletClient;
 import org.example.dto.*;
 import org.example.enums.PaymentStatus;
 import org.example.exception.CartEmptyException;
 import org.example.exception.InsufficientBalanceException;
+import org.example.exception.InvalidCursorException;
 import org.example.exception.PriceMismatchException;
+import org.example.exception.PurchaseNotFoundException;
 import org.example.exception.WalletNotFoundException;
 import org.example.mapper.PurchaseMapper;
 import org.example.model.Purchase;
 import org.example.repository.PurchaseRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.reactive.TransactionalOperator;
-import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.util.function.Tuples;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class PurchaseServiceImpl implements PurchaseService {
     private static final Logger log = LoggerFactory.getLogger(PurchaseServiceImpl.class);
+    private static final String CURSOR_SEPARATOR = ",";
     private final CartClient cartClient;
     private final ProductClient productClient;
-    private final OrderClient orderClient;
-    private final WalletClient walletClient;
-    private final PurchaseRepository purchaseRepository;
-    private final TransactionalOperator transactionalOperator;
     private final PurchaseMapper purchaseMapper;
+    private final CheckoutSagaOrchestrator sagaOrchestrator;
+    private final CheckoutStageTimer stageTimer;
+    private final PurchaseRepository purchaseRepository;
+    private final AsyncCheckoutDispatcher checkoutDispatcher;
+    private final PurchaseEventPublisher purchaseEventPublisher;
+    private final R2dbcEntityTemplate template;
 
     @Override
     public Mono<PurchaseResponseDTO> createPurchase(UUID userId) {
-        return getValidatedCart(userId)
+        return checkout(userId, null);
+    }
+
+    /**
+     * Persists a PENDING purchase without an order and runs the checkout for it on the {@link AsyncCheckoutDispatcher}.
+     * Progress is published to {@link PurchaseEventPublisher} when the checkout finishes.
+     */
+    @Override
+    public Mono<PurchaseResponseDTO> submitPurchase(UUID userId) {
+        Purchase accepted = new Purchase(
+                null,
+                null,
+                userId,
+                PaymentStatus.PENDING,
+                LocalDateTime.now(),
+                "Checkout in progress",
+                null
+        );
+        return checkoutDispatcher.submit(Mono.defer(() -> purchaseRepository.save(accepted)),
+                        this::runAcceptedCheckout)
+                .doOnNext(purchase -> log.debug("Accepted purchase {} for user: {}", purchase.id(), userId))
+                .map(purchaseMapper::toResponseDto);
+    }
+
+    @Override
+    public Mono<PurchaseResponseDTO> getPurchase(UUID userId, Integer purchaseId) {
+        return purchaseRepository.findByIdAndUserId(purchaseId, userId)
+                .switchIfEmpty(Mono.error(new PurchaseNotFoundException(purchaseId)))
+                .map(purchaseMapper::toResponseDto);
+    }
+
+    /**
+     * Emits the current status and then every change, completing once the purchase has an order or has failed.
+     */
+    @Override
+    public Flux<PurchaseResponseDTO> streamPurchase(UUID userId, Integer purchaseId) {
+        return getPurchase(userId, purchaseId)
+                .flatMapMany(current -> isSettled(current)
+                        ? Flux.just(current)
+                        : purchaseEventPublisher.listen(purchaseId)
+                                .flatMapMany(events -> Flux.merge(events, Mono.defer(() -> getPurchase(userId, purchaseId)))))
+                .takeUntil(this::isSettled);
+    }
+
+    /**
+     * Keyset pagination over {@code (transaction_date, id)}, newest first, served by
+     * {@code idx_purchases_user_id_transaction_date_id}; no OFFSET and no total count.
+     */
+    @Override
+    public Mono<PurchasePageDTO> getPurchases(UUID userId, PaymentStatus status, LocalDateTime from, LocalDateTime to,
+                                              String cursor, int size) {
+        return Mono.fromCallable(() -> buildHistoryCriteria(userId, status, from, to, cursor))
+                .flatMapMany(criteria -> template.select(Purchase.class)
+                        .matching(Query.query(criteria)
+                                .sort(Sort.by(Sort.Order.desc("transactionDate"), Sort.Order.desc("id")))
+                                .limit(size + 1))
+                        .all())
+                .collectList()
+                .map(purchases -> {
+                    boolean hasNext = purchases.size() > size;
+                    List<Purchase> page = hasNext ? purchases.subList(0, size) : purchases;
+                    String nextCursor = hasNext ? encodeCursor(page.get(page.size() - 1)) : null;
+                    return new PurchasePageDTO(page.stream().map(purchaseMapper::toResponseDto).toList(), nextCursor);
+                });
+    }
+
+    /**
+     * The cart snapshot is fetched and its prices validated; the balance is not read up front, the conditional
+     * debit in the saga checks it. The snapshot's version is kept on the saga so that only the cart that was
+     * charged for gets cleared. Everything from the debit on runs as a persisted saga, see {@link CheckoutSagaOrchestrator}.
+     * Every stage is timed as {@code purchase.checkout.stage}.
+     */
+    private Mono<PurchaseResponseDTO> checkout(UUID userId, Integer purchaseId) {
+        return stageTimer.time("cart", getValidatedCart(userId))
+                .flatMap(cart -> stageTimer.time("validate_prices", validatePrices(cart))
+                        .thenReturn(cart))
                 .flatMap(cart -> {
                     BigDecimal totalAmount = calculateTotal(cart);
-                    return validatePrices(cart)
-                            .then(checkAndDebitBalance(userId, totalAmount))
-                            .thenReturn(Tuples.of(cart, totalAmount));
+                    return sagaOrchestrator.execute(userId, totalAmount, toOrderRequest(cart), purchaseId, cart.version())
+                            .map(purchase -> purchaseMapper.toResponseDto(purchase, totalAmount));
                 })
-                .flatMap(tuple -> {
-                    CartDTO cart = tuple.getT1();
-                    BigDecimal totalAmount = tuple.getT2();
-                    return createOrder(cart)
-                            .flatMap(order -> savePurchase(userId, order)
-                                    .map(purchase -> Tuples.of(purchase, totalAmount)))
-                            .flatMap(purchaseTuple -> clearCart(userId)
-                                    .thenReturn(purchaseTuple)
-                                    .onErrorResume(e -> rollbackPurchase(userId, purchaseTuple.getT1(), totalAmount)
-                                            .then(Mono.error(e))))
-                            .onErrorResume(e -> rollbackBalance(userId, totalAmount)
-                                    .then(Mono.error(e)));
-                })
-                .map(tuple -> purchaseMapper.toResponseDto(tuple.getT1(), tuple.getT2()))
-                .as(transactionalOperator::transactional)
+                .transform(checkout -> stageTimer.time("total", checkout))
                 .onErrorResume(InsufficientBalanceException.class, e -> {
                     log.error("Insufficient balance for user: {}, error: {}", userId, e.getMessage(), e);
                     return Mono.error(e);
@@ -81,39 +151,114 @@ public class PurchaseServiceImpl implements PurchaseService {
                 });
     }
 
-    private Mono<CartDTO> getValidatedCart(UUID userId) {
-        log.debug("Fetching cart for user: {}", userId);
-        return cartClient.getCart(userId)
+    /**
+     * A failure fails the purchase only once no saga for it is left running; otherwise recovery finishes it.
+     */
+    private Mono<Void> runAcceptedCheckout(Purchase accepted) {
+        return checkout(accepted.userId(), accepted.id())
+                .then()
+                .onErrorResume(e -> purchaseRepository.markFailed(accepted.id(),
+                                e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName())
+                        .doOnNext(failed -> {
+                            if (failed == 0) {
+                                log.info("Purchase {} left PENDING for its saga to settle: {}", accepted.id(), e.getMessage());
+                            }
+                        })
+                        .then())
+                .then(purchaseRepository.findById(accepted.id()))
+                .map(purchaseMapper::toResponseDto)
+                .flatMap(purchaseEventPublisher::publish);
+    }
+
+    private Criteria buildHistoryCriteria(UUID userId, PaymentStatus status, LocalDateTime from, LocalDateTime to,
+                                          String cursor) {
+        return Stream.of(
+                        Optional.of(Criteria.where("user_id").is(userId)),
+                        Optional.ofNullable(status)
+                                .map(paymentStatus -> Criteria.where("payment_status").is(paymentStatus.name())),
+                        Optional.ofNullable(from)
+                                .map(date -> Criteria.where("transaction_date").greaterThanOrEquals(date)),
+                        Optional.ofNullable(to)
+                                .map(date -> Criteria.where("transaction_date").lessThan(date)),
+                        Optional.ofNullable(cursor)
+                                .map(this::decodeCursor)
+                                .map(this::afterCursor))
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .reduce(Criteria.empty(), Criteria::and, Criteria::and);
+    }
+
+    /**
+     * Rows strictly after the cursor in {@code (transaction_date DESC, id DESC)} order; the redundant upper bound
+     * on {@code transaction_date} gives the index scan a start key.
+     */
+    private Criteria afterCursor(Purchase last) {
+        return Criteria.where("transaction_date").lessThanOrEquals(last.transactionDate())
+                .and(Criteria.where("transaction_date").lessThan(last.transactionDate())
+                        .or(Criteria.where("transaction_date").is(last.transactionDate())
+                                .and("id").lessThan(last.id())));
+    }
+
+    private String encodeCursor(Purchase last) {
+        String raw = last.transactionDate() + CURSOR_SEPARATOR + last.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Purchase decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(CURSOR_SEPARATOR, 2);
+            return new Purchase(Integer.valueOf(parts[1]), null, null, null, LocalDateTime.parse(parts[0]), null, null);
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    private boolean isSettled(PurchaseResponseDTO purchase) {
+        return purchase.orderId() != null || purchase.paymentStatus() != PaymentStatus.PENDING;
+    }
+
+    private Mono<CartSnapshotDTO> getValidatedCart(UUID userId) {
+        log.debug("Fetching cart snapshot for user: {}", userId);
+        return cartClient.getCartSnapshot(userId)
                 .filter(cart -> !cart.items().isEmpty())
                 .switchIfEmpty(Mono.error(new CartEmptyException(userId.toString())));
     }
 
-    private Mono<Void> validatePrices(CartDTO cart) {
+    private Mono<Void> validatePrices(CartSnapshotDTO cart) {
         log.debug("Validating prices for cart: {}", cart.id());
-        return Flux.fromIterable(cart.items())
-                .flatMap(item -> productClient.getProductById(item.productId())
-                        .filter(product -> product.price().equals(item.priceAtTime()))
-                        .switchIfEmpty(Mono.error(new PriceMismatchException(item.productId()))))
-                .then();
-    }
-
-    private Mono<Void> checkAndDebitBalance(UUID userId, BigDecimal totalAmount) {
-        log.debug("Checking and debiting balance for user: {}, amount: {}", userId, totalAmount);
-        return walletClient.getWallet(userId)
-                .filter(wallet -> wallet.balance().compareTo(totalAmount) >= 0)
-                .switchIfEmpty(Mono.error(new InsufficientBalanceException(userId)))
-                .flatMap(wallet -> walletClient.debitBalance(userId, totalAmount));
+        List<Integer> productIds = cart.items().stream()
+                .map(CartSnapshotDTO.LineDTO::productId)
+                .toList();
+        return productClient.getProductsByIds(productIds)
+                .collectMap(ProductDetailDTO::id, ProductDetailDTO::price)
+                .flatMap(currentPrices -> {
+                    List<Integer> mismatchedIds = new ArrayList<>();
+                    List<String> details = new ArrayList<>();
+                    for (CartSnapshotDTO.LineDTO item : cart.items()) {
+                        BigDecimal currentPrice = currentPrices.get(item.productId());
+                        if (currentPrice == null) {
+                            mismatchedIds.add(item.productId());
+                            details.add(item.productId() + " is no longer available");
+                        } else if (item.priceAtTime() == null || currentPrice.compareTo(item.priceAtTime()) != 0) {
+                            mismatchedIds.add(item.productId());
+                            details.add(item.productId() + " changed from " + item.priceAtTime() + " to " + currentPrice);
+                        }
+                    }
+                    return mismatchedIds.isEmpty()
+                            ? Mono.<Void>empty()
+                            : Mono.<Void>error(new PriceMismatchException(mismatchedIds, String.join("; ", details)));
+                });
     }
 
-    private BigDecimal calculateTotal(CartDTO cart) {
+    private BigDecimal calculateTotal(CartSnapshotDTO cart) {
         return cart.items().stream()
                 .map(item -> item.priceAtTime().multiply(BigDecimal.valueOf(item.quantity())))
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
 
-    private Mono<OrderDetailDTO> createOrder(CartDTO cart) {
-        log.debug("Creating order for cart: {}, user: {}", cart.id(), cart.userId());
-        CreateOrderRequestDTO request = new CreateOrderRequestDTO(
+    private CreateOrderRequestDTO toOrderRequest(CartSnapshotDTO cart) {
+        return new CreateOrderRequestDTO(
                 cart.userId(),
                 cart.items().stream()
                         .map(item -> new CreateOrderRequestDTO.OrderItemRequestDTO(
@@ -121,42 +266,5 @@ public class PurchaseServiceImpl implements PurchaseService {
                                 item.quantity()))
                         .toList()
         );
-        return orderClient.createOrder(request)
-                .retry(2)
-                .onErrorMap(WebClientResponseException.class, e -> new RuntimeException("Failed to create order: " + e.getMessage(), e));
-    }
-
-    private Mono<Purchase> savePurchase(UUID userId, OrderDetailDTO order) {
-        log.debug("Saving purchase for order: {}, user: {}", order.id(), userId);
-        Purchase purchase = new Purchase(
-                null,
-                order.id(),
-                userId,
-                PaymentStatus.PENDING,
-                LocalDateTime.now(),
-                "Payment via card"
-        );
-        return purchaseRepository.save(purchase);
-    }
-
-    private Mono<Void> clearCart(UUID userId) {
-        log.debug("Clearing cart for user: {}", userId);
-        return cartClient.clearCart(userId)
-                .retry(2)
-                .onErrorMap(e -> new RuntimeException("Failed to clear cart: " + e.getMessage(), e));
-    }
-
-    private Mono<Void> rollbackBalance(UUID userId, BigDecimal amount) {
-        log.debug("Rolling back balance for user: {}, amount: {}", userId, amount);
-        return walletClient.creditBalance(userId, amount)
-                .retry(2)
-                .onErrorMap(e -> new RuntimeException("Failed to rollback balance: " + e.getMessage(), e));
-    }
-
-    private Mono<Void> rollbackPurchase(UUID userId, Purchase purchase, BigDecimal amount) {
-        log.debug("Rolling back purchase and balance for user: {}, purchase: {}, amount: {}", userId, purchase.orderId(), amount);
-        return purchaseRepository.delete(purchase)
-                .then(rollbackBalance(userId, amount))
-                .onErrorMap(e -> new RuntimeException("Failed to rollback purchase and balance: " + e.getMessage(), e));
     }
 }
\ No newline at end of file
@@ -1,12 +1,17 @@
 package org.example.controller;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.example.dto.CreditBalanceRequestDTO;
 import org.example.dto.DebitBalanceRequestDTO;
+import org.example.dto.DebitResultDTO;
 import org.example.dto.WalletDTO;
 import org.example.service.WalletService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.validation.annotation.Validated;
@@ -86,14 +91,55 @@ public class WalletController {
                 });
     }
 
+    /**
+     * Debits only if the balance covers the amount: 200 with the new balance, or 409 with the current balance and shortfall.
+     * A debit carrying a {@code reference} is applied once; repeating it returns 200 without charging again.
+     */
+    @PutMapping("/debit/conditional")
+    public Mono<ResponseEntity<DebitResultDTO>> debitIfSufficient(
+            @AuthenticationPrincipal Jwt jwt,
+            @RequestHeader(value = "X-User-Id", required = false) String xUserId,
+            @Valid @RequestBody DebitBalanceRequestDTO request) {
+        UUID userId = resolveUserId(jwt, xUserId);
+        log.debug("Conditionally debiting balance for user: {}, amount: {}", userId, request.amount());
+        return walletService.debitIfSufficient(userId, request.amount(), request.reference())
+                .map(result -> result.debited()
+                        ? ResponseEntity.ok(result)
+                        : ResponseEntity.status(HttpStatus.CONFLICT).body(result))
+                .doOnSuccess(response -> log.debug("Conditional debit for user {} returned {}", userId, response.getStatusCode()))
+                .onErrorMap(e -> {
+                    log.error("Error debiting balance for user {}: {}", userId, e.getMessage(), e);
+                    return e instanceof RuntimeException ? e : new RuntimeException("Failed to debit balance", e);
+                });
+    }
+
+    /**
+     * 204 if a debit with this reference was applied to the user's wallet, 404 if not.
+     */
+    @GetMapping("/debits/{reference}")
+    public Mono<ResponseEntity<Void>> getDebit(
+            @AuthenticationPrincipal Jwt jwt,
+            @RequestHeader(value = "X-User-Id", required = false) String xUserId,
+            @PathVariable @Size(max = 100) String reference) {
+        UUID userId = resolveUserId(jwt, xUserId);
+        log.debug("Looking up debit {} for user: {}", reference, userId);
+        return walletService.isDebitApplied(userId, reference)
+                .map(applied -> applied
+                        ? ResponseEntity.noContent().<Void>build()
+                        : ResponseEntity.notFound().<Void>build());
+    }
+
+    /**
+     * A credit carrying a {@code reference} is applied once; repeating it returns 200 without crediting again.
+     */
     @PutMapping("/credit")
     public Mono<Void> creditBalance(
             @AuthenticationPrincipal Jwt jwt,
             @RequestHeader(value = "X-User-Id", required = false) String xUserId,
-            @Valid @RequestBody DebitBalanceRequestDTO request) {
+            @Valid @RequestBody CreditBalanceRequestDTO request) {
         UUID userId = resolveUserId(jwt, xUserId);
         log.debug("Crediting balance for user: {}, amount: {}", userId, request.amount());
-        return walletService.creditBalance(userId, request.amount())
+        return walletService.creditBalance(userId, request.amount(), request.reference())
                 .doOnSuccess(v -> log.debug("Balance credited for user: {}", userId))
                 .onErrorMap(e -> {
                     log.error("Error crediting balance for user {}: {}", userId, e.getMessage(), e);
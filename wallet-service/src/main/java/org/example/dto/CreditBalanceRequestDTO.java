@@ -0,0 +1,13 @@
+package org.example.dto;
+
+import jakarta.validation.constraints.Size;
+
+import java.math.BigDecimal;
+
+/**
+ * A credit with a {@code reference} is applied at most once per reference; repeating it is a no-op.
+ */
+public record CreditBalanceRequestDTO(
+        BigDecimal amount,
+        @Size(max = 100) String reference)
+{}
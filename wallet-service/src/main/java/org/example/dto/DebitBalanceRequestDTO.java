@@ -1,7 +1,14 @@
 package org.example.dto;
 
+import jakarta.validation.constraints.Size;
+
 import java.math.BigDecimal;
 
+/**
+ * A conditional debit with a {@code reference} is applied at most once per reference; repeating it reports the debit
+ * as done without charging again.
+ */
 public record DebitBalanceRequestDTO(
-        BigDecimal amount)
+        BigDecimal amount,
+        @Size(max = 100) String reference)
 {}
\ No newline at end of file
@@ -0,0 +1,12 @@
+package org.example.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Outcome of a conditional debit: the balance after the debit, or the untouched balance and the shortfall when it was refused.
+ */
+public record DebitResultDTO(
+        boolean debited,
+        BigDecimal balance,
+        BigDecimal shortfall)
+{}
@@ -18,7 +18,32 @@ public interface WalletRepository extends ReactiveCrudRepository<Wallet, Integer
     @Query("UPDATE wallets SET balance = balance - :amount, updated_at = :updatedAt WHERE user_id = :userId AND balance >= :amount")
     Mono<Integer> debitBalance(UUID userId, BigDecimal amount, LocalDateTime updatedAt);
 
+    @Query("UPDATE wallets SET balance = balance - :amount, updated_at = :updatedAt " +
+            "WHERE user_id = :userId AND balance >= :amount RETURNING balance")
+    Mono<BigDecimal> debitIfSufficient(UUID userId, BigDecimal amount, LocalDateTime updatedAt);
+
+    @Query("SELECT EXISTS (SELECT 1 FROM wallet_debits WHERE user_id = :userId AND reference = :reference)")
+    Mono<Boolean> isDebitApplied(UUID userId, String reference);
+
+    @Modifying
+    @Query("INSERT INTO wallet_debits (user_id, reference, amount, created_at) " +
+            "VALUES (:userId, :reference, :amount, :createdAt)")
+    Mono<Integer> recordDebit(UUID userId, String reference, BigDecimal amount, LocalDateTime createdAt);
+
+    @Query("SELECT balance FROM wallets WHERE user_id = :userId")
+    Mono<BigDecimal> findBalanceByUserId(UUID userId);
+
     @Modifying
     @Query("UPDATE wallets SET balance = balance + :amount, updated_at = :updatedAt WHERE user_id = :userId")
     Mono<Integer> creditBalance(UUID userId, BigDecimal amount, LocalDateTime updatedAt);
+
+    /**
+     * Records the reference and credits the wallet in one statement; returns 0 when the reference was already applied.
+     */
+    @Modifying
+    @Query("WITH applied AS (INSERT INTO wallet_credits (user_id, reference, amount, created_at) " +
+            "VALUES (:userId, :reference, :amount, :updatedAt) ON CONFLICT (reference) DO NOTHING RETURNING user_id, amount) " +
+            "UPDATE wallets w SET balance = w.balance + applied.amount, updated_at = :updatedAt " +
+            "FROM applied WHERE w.user_id = applied.user_id")
+    Mono<Integer> creditOnce(UUID userId, BigDecimal amount, String reference, LocalDateTime updatedAt);
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package org.example.service;
 
+import org.example.dto.DebitResultDTO;
 import org.example.dto.WalletDTO;
 import reactor.core.publisher.Mono;
 
@@ -9,5 +10,9 @@ import java.util.UUID;
 public interface WalletService {
     Mono<WalletDTO> getOrCreateWallet(UUID userId);
     Mono<Void> debitBalance(UUID userId, BigDecimal amount);
+    Mono<DebitResultDTO> debitIfSufficient(UUID userId, BigDecimal amount);
+    Mono<DebitResultDTO> debitIfSufficient(UUID userId, BigDecimal amount, String reference);
+    Mono<Boolean> isDebitApplied(UUID userId, String reference);
     Mono<Void> creditBalance(UUID userId, BigDecimal amount);
+    Mono<Void> creditBalance(UUID userId, BigDecimal amount, String reference);
 }
@@ -2,6 +2,7 @@ package org.example.service;
 
 
 import lombok.RequiredArgsConstructor;
+import org.example.dto.DebitResultDTO;
 import org.example.dto.WalletDTO;
 import org.example.exception.InsufficientBalanceException;
 import org.example.exception.WalletNotFoundException;
@@ -65,6 +66,58 @@ public class WalletServiceImpl implements WalletService {
                 });
     }
 
+    /**
+     * Checks and debits in one conditional UPDATE against the row itself, never the cached wallet.
+     * The balance is only read again when the debit is refused; a missing wallet counts as a zero balance.
+     */
+    @Override
+    public Mono<DebitResultDTO> debitIfSufficient(UUID userId, BigDecimal amount) {
+        log.debug("Conditionally debiting balance for user: {}, amount: {}", userId, amount);
+        String cacheKey = CACHE_KEY_PREFIX + userId;
+        return walletRepository.debitIfSufficient(userId, amount, LocalDateTime.now())
+                .flatMap(balance -> redisTemplate.delete(cacheKey)
+                        .onErrorResume(e -> {
+                            log.warn("Failed to evict cached wallet for user: {}", userId, e);
+                            return Mono.empty();
+                        })
+                        .thenReturn(new DebitResultDTO(true, balance, null)))
+                .switchIfEmpty(Mono.defer(() -> walletRepository.findBalanceByUserId(userId)
+                        .defaultIfEmpty(BigDecimal.ZERO)
+                        .map(balance -> new DebitResultDTO(false, balance, amount.subtract(balance).max(BigDecimal.ZERO)))));
+    }
+
+    /**
+     * Applies the debit at most once per {@code reference}: the wallet row is locked first, so a repeated request
+     * waits for the first and then finds its reference instead of charging again. A missing wallet is refused.
+     */
+    @Override
+    @Transactional
+    public Mono<DebitResultDTO> debitIfSufficient(UUID userId, BigDecimal amount, String reference) {
+        if (reference == null) {
+            return debitIfSufficient(userId, amount);
+        }
+        log.debug("Conditionally debiting balance for user: {}, amount: {}, reference: {}", userId, amount, reference);
+        return walletRepository.findByUserIdForUpdate(userId)
+                .flatMap(wallet -> walletRepository.isDebitApplied(userId, reference)
+                        .flatMap(applied -> {
+                            if (applied) {
+                                log.info("Debit {} for user {} was already applied", reference, userId);
+                                return Mono.just(new DebitResultDTO(true, wallet.balance(), null));
+                            }
+                            return debitIfSufficient(userId, amount)
+                                    .flatMap(result -> result.debited()
+                                            ? walletRepository.recordDebit(userId, reference, amount, LocalDateTime.now())
+                                                    .thenReturn(result)
+                                            : Mono.just(result));
+                        }))
+                .switchIfEmpty(Mono.fromSupplier(() -> new DebitResultDTO(false, BigDecimal.ZERO, amount)));
+    }
+
+    @Override
+    public Mono<Boolean> isDebitApplied(UUID userId, String reference) {
+        return walletRepository.isDebitApplied(userId, reference);
+    }
+
     @Override
     @Transactional
     public Mono<Void> creditBalance(UUID userId, BigDecimal amount) {
@@ -77,6 +130,29 @@ public class WalletServiceImpl implements WalletService {
                         .then());
     }
 
+    /**
+     * Applies the credit at most once per {@code reference}, so a caller retrying after a lost response is not paid twice.
+     */
+    @Override
+    @Transactional
+    public Mono<Void> creditBalance(UUID userId, BigDecimal amount, String reference) {
+        if (reference == null) {
+            return creditBalance(userId, amount);
+        }
+        log.debug("Crediting balance for user: {}, amount: {}, reference: {}", userId, amount, reference);
+        String cacheKey = CACHE_KEY_PREFIX + userId;
+        return walletRepository.findByUserIdForUpdate(userId)
+                .switchIfEmpty(Mono.error(new WalletNotFoundException(userId)))
+                .flatMap(wallet -> walletRepository.creditOnce(userId, amount, reference, LocalDateTime.now()))
+                .doOnNext(credited -> {
+                    if (credited == 0) {
+                        log.info("Credit {} for user {} was already applied", reference, userId);
+                    }
+                })
+                .then(redisTemplate.delete(cacheKey))
+                .then();
+    }
+
     private Mono<Wallet> createNewWallet(UUID userId) {
         Wallet wallet = new Wallet(null, userId, BigDecimal.ZERO, null, null);
         return walletRepository.save(wallet)